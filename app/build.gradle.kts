@@ -63,10 +63,16 @@ dependencies {
     implementation(libs.hilt.work)
     annotationProcessor(libs.hilt.work)
     implementation("com.google.guava:guava:31.1-android")
+
+    // Room Dependencies
+    implementation(libs.room.runtime)
+    annotationProcessor(libs.room.compiler)
     
     // Glide Dependencies
     implementation(libs.glide)
     annotationProcessor(libs.glide.compiler)
+
+    implementation(libs.exifinterface)
     
     implementation("com.github.chrisbanes:PhotoView:2.3.0")
     
@@ -6,10 +6,16 @@ import android.app.NotificationManager;
 import android.media.RingtoneManager;
 import android.os.Build;
 import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.hilt.work.HiltWorkerFactory;
+import androidx.work.Configuration;
 import dagger.hilt.android.HiltAndroidApp;
+import javax.inject.Inject;
 
 @HiltAndroidApp
-public class ChatZamApplication extends Application {
+public class ChatZamApplication extends Application implements Configuration.Provider {
+
+  @Inject HiltWorkerFactory workerFactory;
 
   @Override
   public void onCreate() {
@@ -17,6 +23,12 @@ public class ChatZamApplication extends Application {
     createNotificationChannel();
   }
 
+  @NonNull
+  @Override
+  public Configuration getWorkManagerConfiguration() {
+    return new Configuration.Builder().setWorkerFactory(workerFactory).build();
+  }
+
   private void createNotificationChannel() {
     String channelId = "chat_messages";
     String channelName = "Chat Messages";
@@ -2,6 +2,9 @@ package com.wornux.chatzam.data.di;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import androidx.room.Room;
+import androidx.work.WorkManager;
+import com.wornux.chatzam.data.local.ChatZamDatabase;
 import com.wornux.chatzam.utils.PreferenceConstants;
 import dagger.Module;
 import dagger.Provides;
@@ -9,6 +12,9 @@ import dagger.hilt.InstallIn;
 import dagger.hilt.android.qualifiers.ApplicationContext;
 import dagger.hilt.components.SingletonComponent;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Singleton;
 
 @Module
@@ -20,4 +26,47 @@ public class AppModule {
     SharedPreferences provideSharedPreferences(@ApplicationContext Context ctx){
         return ctx.getSharedPreferences(PreferenceConstants.PREFERENCE_FILE_NAME, Context.MODE_PRIVATE);
     }
-}
\ No newline at end of file
+
+    @Provides
+    @Singleton
+    ChatZamDatabase provideDatabase(@ApplicationContext Context ctx) {
+        return Room.databaseBuilder(ctx, ChatZamDatabase.class, ChatZamDatabase.DATABASE_NAME)
+                .addMigrations(
+                        ChatZamDatabase.MIGRATION_2_3,
+                        ChatZamDatabase.MIGRATION_3_4,
+                        ChatZamDatabase.MIGRATION_4_5,
+                        ChatZamDatabase.MIGRATION_5_6,
+                        ChatZamDatabase.MIGRATION_6_7)
+                .fallbackToDestructiveMigration(true)
+                .build();
+    }
+
+    @Provides
+    @Singleton
+    WorkManager provideWorkManager(@ApplicationContext Context ctx) {
+        return WorkManager.getInstance(ctx);
+    }
+
+    @Provides
+    @Singleton
+    @BackgroundExecutor
+    Executor provideBackgroundExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chatzam-background");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    @Provides
+    @Singleton
+    @MediaExecutor
+    Executor provideMediaExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "chatzam-media-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.wornux.chatzam.data.dto;
+
+import com.google.firebase.firestore.PropertyName;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Builder
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaVariant {
+    @Getter(onMethod_ = {@PropertyName("rendition")})
+    @Setter(onMethod_ = {@PropertyName("rendition")})
+    private MediaRendition rendition;
+    
+    @Getter(onMethod_ = {@PropertyName("url")})
+    @Setter(onMethod_ = {@PropertyName("url")})
+    private String url;
+    
+    @Getter(onMethod_ = {@PropertyName("width")})
+    @Setter(onMethod_ = {@PropertyName("width")})
+    private int width;
+    
+    @Getter(onMethod_ = {@PropertyName("height")})
+    @Setter(onMethod_ = {@PropertyName("height")})
+    private int height;
+}
@@ -104,7 +104,7 @@ public sealed class Chat permits GroupChat {
   }
 
   @Exclude
-  public boolean equals(Chat other) {
+  public boolean hasSameContent(Chat other) {
     if (!Objects.equals(this.getChatType(), other.getChatType())) {
       return false;
     }
@@ -119,10 +119,15 @@ public sealed class Chat permits GroupChat {
       return Objects.equals(this.getGroupName(), other.getGroupName())
           && Objects.equals(this.getGroupImageUrl(), other.getGroupImageUrl());
     } else {
-      return compareParticipantDetails(this.getParticipantDetails(), other.getParticipantDetails());
+      return hasSameParticipantDetails(other);
     }
   }
 
+  @Exclude
+  public boolean hasSameParticipantDetails(Chat other) {
+    return compareParticipantDetails(this.getParticipantDetails(), other.getParticipantDetails());
+  }
+
   @Exclude
   private boolean compareParticipantDetails(
       Map<String, UserDto> oldMap, Map<String, UserDto> newMap) {
@@ -3,7 +3,9 @@ package com.wornux.chatzam.data.entities;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.PropertyName;
+import com.wornux.chatzam.data.dto.MediaVariant;
 import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.enums.SendStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -65,8 +67,50 @@ public class Message {
     @Setter(onMethod_ = {@PropertyName("media_url")})
     private String mediaUrl;
     
+    @Getter(onMethod_ = {@PropertyName("media_variants")})
+    @Setter(onMethod_ = {@PropertyName("media_variants")})
+    @Builder.Default
+    private List<MediaVariant> mediaVariants = new ArrayList<>();
+    
+    @Getter(onMethod_ = {@PropertyName("media_width")})
+    @Setter(onMethod_ = {@PropertyName("media_width")})
+    private int mediaWidth;
+    
+    @Getter(onMethod_ = {@PropertyName("media_height")})
+    @Setter(onMethod_ = {@PropertyName("media_height")})
+    private int mediaHeight;
+    
+    @Getter(onMethod_ = {@PropertyName("media_placeholder")})
+    @Setter(onMethod_ = {@PropertyName("media_placeholder")})
+    private String mediaPlaceholder;
+    
+    @Getter(onMethod_ = {@Exclude})
+    @Setter(onMethod_ = {@Exclude})
+    @Builder.Default
+    private SendStatus sendStatus = SendStatus.SENT;
+    
     @Exclude
     public boolean hasMedia() {
         return mediaUrl != null && !mediaUrl.trim().isEmpty();
     }
+    
+    /**
+     * Returns the smallest variant that covers a {@code targetWidth} x {@code targetHeight} view on
+     * both axes, as a center crop needs, or the largest variant when none does.
+     */
+    @Exclude
+    public String getMediaUrlFor(int targetWidth, int targetHeight) {
+        MediaVariant best = null;
+        boolean bestFits = false;
+        for (MediaVariant variant : mediaVariants != null ? mediaVariants : List.<MediaVariant>of()) {
+            if (variant.getUrl() == null) continue;
+            boolean fits = variant.getWidth() >= targetWidth && variant.getHeight() >= targetHeight;
+            boolean smaller = best == null || variant.getWidth() < best.getWidth();
+            if (best == null || (fits && (!bestFits || smaller)) || (!fits && !bestFits && !smaller)) {
+                best = variant;
+                bestFits = fits;
+            }
+        }
+        return best != null ? best.getUrl() : mediaUrl;
+    }
 }
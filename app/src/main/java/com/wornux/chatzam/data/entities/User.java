@@ -6,7 +6,9 @@ import com.wornux.chatzam.data.enums.UserStatus;
 import lombok.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Builder
 @NoArgsConstructor
@@ -45,6 +47,15 @@ public class User {
     @Builder.Default
     private List<String> fcmTokens = new ArrayList<>();
 
+    @Getter(onMethod_ = {@PropertyName("fcm_token_last_seen")})
+    @Setter(onMethod_ = {@PropertyName("fcm_token_last_seen")})
+    @Builder.Default
+    private Map<String, Timestamp> fcmTokenLastSeen = new HashMap<>();
+
+    @Getter(onMethod_ = {@PropertyName("updated_at")})
+    @Setter(onMethod_ = {@PropertyName("updated_at")})
+    private Timestamp updatedAt;
+
     public void updateLastSeen() {
         this.lastSeen = Timestamp.now();
     }
@@ -0,0 +1,19 @@
+package com.wornux.chatzam.data.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Longest side and JPEG quality of each uploaded rendition. THUMB covers the 280dp image bubble on
+ * xxhdpi screens (840 px wide, up to 1120 px tall for a 3:4 photo) and MEDIUM covers it on xxxhdpi.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum MediaRendition {
+    THUMB(1120, 70),
+    MEDIUM(1600, 78),
+    ORIGINAL(2048, 82);
+
+    private final int maxDimension;
+    private final int quality;
+}
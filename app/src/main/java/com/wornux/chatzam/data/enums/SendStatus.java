@@ -0,0 +1,5 @@
+package com.wornux.chatzam.data.enums;
+
+public enum SendStatus {
+    UPLOADING, PENDING, SENT, FAILED
+}
@@ -0,0 +1,99 @@
+package com.wornux.chatzam.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Database;
+import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.wornux.chatzam.data.local.dao.ChatDao;
+import com.wornux.chatzam.data.local.dao.MediaUploadDao;
+import com.wornux.chatzam.data.local.dao.MessageDao;
+import com.wornux.chatzam.data.local.dao.OutboxDao;
+import com.wornux.chatzam.data.local.dao.UserDao;
+import com.wornux.chatzam.data.local.entities.LocalChat;
+import com.wornux.chatzam.data.local.entities.LocalMessage;
+import com.wornux.chatzam.data.local.entities.LocalUser;
+import com.wornux.chatzam.data.local.entities.MediaUpload;
+import com.wornux.chatzam.data.local.entities.OutboxMessage;
+
+@Database(
+    entities = {
+      LocalChat.class,
+      LocalMessage.class,
+      OutboxMessage.class,
+      LocalUser.class,
+      MediaUpload.class
+    },
+    version = 7,
+    exportSchema = false)
+@TypeConverters(LocalConverters.class)
+public abstract class ChatZamDatabase extends RoomDatabase {
+
+  public static final String DATABASE_NAME = "chatzam.db";
+
+  public static final Migration MIGRATION_2_3 =
+      new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+          db.execSQL(
+              "CREATE TABLE IF NOT EXISTS `users` (`user_id` TEXT NOT NULL, `email` TEXT,"
+                  + " `display_name` TEXT, `profile_image_url` TEXT, `is_online` INTEGER NOT NULL,"
+                  + " `last_seen` INTEGER, `status` TEXT, `updated_at` INTEGER,"
+                  + " PRIMARY KEY(`user_id`))");
+        }
+      };
+
+  public static final Migration MIGRATION_3_4 =
+      new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+          db.execSQL("ALTER TABLE `outbox_messages` ADD COLUMN `send_status` TEXT");
+          db.execSQL("UPDATE `outbox_messages` SET `send_status` = 'PENDING'");
+        }
+      };
+
+  public static final Migration MIGRATION_4_5 =
+      new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+          db.execSQL("ALTER TABLE `messages` ADD COLUMN `media_variants` TEXT");
+          db.execSQL("ALTER TABLE `outbox_messages` ADD COLUMN `media_variants` TEXT");
+        }
+      };
+
+  public static final Migration MIGRATION_5_6 =
+      new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+          for (String table : new String[] {"messages", "outbox_messages"}) {
+            db.execSQL("ALTER TABLE `" + table + "` ADD COLUMN `media_width` INTEGER");
+            db.execSQL("ALTER TABLE `" + table + "` ADD COLUMN `media_height` INTEGER");
+            db.execSQL("ALTER TABLE `" + table + "` ADD COLUMN `media_placeholder` TEXT");
+          }
+        }
+      };
+
+  public static final Migration MIGRATION_6_7 =
+      new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+          db.execSQL(
+              "CREATE TABLE IF NOT EXISTS `media_uploads` (`message_id` TEXT NOT NULL,"
+                  + " `rendition` TEXT NOT NULL, `file_path` TEXT, `content_type` TEXT,"
+                  + " `width` INTEGER NOT NULL, `height` INTEGER NOT NULL, `storage_path` TEXT,"
+                  + " `session_uri` TEXT, `download_url` TEXT,"
+                  + " PRIMARY KEY(`message_id`, `rendition`))");
+        }
+      };
+
+  public abstract ChatDao chatDao();
+
+  public abstract MessageDao messageDao();
+
+  public abstract OutboxDao outboxDao();
+
+  public abstract UserDao userDao();
+
+  public abstract MediaUploadDao mediaUploadDao();
+}
@@ -0,0 +1,57 @@
+package com.wornux.chatzam.data.local;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Maps Room rows to entities, reusing the entity built on the previous emission for every row that
+ * did not change. Only changed rows are re-mapped and unchanged entities keep their identity, so
+ * list diffing short-circuits on {@code oldItem == newItem}. Rows must implement {@code equals}.
+ *
+ * <p>This replaces patching the list from snapshot DocumentChanges: Room re-reads the observed
+ * window on every table change, so each emission costs one {@code equals} per row. Windows are
+ * bounded by the page size and mapped off the main thread, and keeping Room the only writer of the
+ * list is worth that linear pass.
+ */
+public class IncrementalRowMapper<L, T> {
+
+  private final Function<L, String> keyOf;
+  private final Function<L, T> mapper;
+  private Map<String, Row<L, T>> rows = new HashMap<>();
+
+  public IncrementalRowMapper(Function<L, String> keyOf, Function<L, T> mapper) {
+    this.keyOf = keyOf;
+    this.mapper = mapper;
+  }
+
+  public synchronized List<T> map(List<L> locals) {
+    Map<String, Row<L, T>> next = new HashMap<>(locals.size() * 2);
+    List<T> entities = new ArrayList<>(locals.size());
+    for (L local : locals) {
+      String key = keyOf.apply(local);
+      Row<L, T> previous = rows.get(key);
+      T entity =
+          previous != null && previous.local.equals(local) ? previous.entity : mapper.apply(local);
+      next.put(key, new Row<>(local, entity));
+      entities.add(entity);
+    }
+    rows = next;
+    return entities;
+  }
+
+  /** Maps every emission of {@code source} on {@code executor}, which must be serial. */
+  public LiveData<List<T>> mapAsync(LiveData<List<L>> source, Executor executor) {
+    MediatorLiveData<List<T>> result = new MediatorLiveData<>();
+    result.addSource(source, locals -> executor.execute(() -> result.postValue(map(locals))));
+    return result;
+  }
+
+  private record Row<L, T>(L local, T entity) {}
+}
@@ -0,0 +1,157 @@
+package com.wornux.chatzam.data.local;
+
+import androidx.room.TypeConverter;
+import com.google.firebase.Timestamp;
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public final class LocalConverters {
+
+  private static final long MICROS_PER_SECOND = 1_000_000L;
+  private static final int NANOS_PER_MICRO = 1_000;
+
+  private LocalConverters() {
+    //not required
+  }
+
+  public static Long toMicros(Timestamp timestamp) {
+    if (timestamp == null) return null;
+    return timestamp.getSeconds() * MICROS_PER_SECOND + timestamp.getNanoseconds() / NANOS_PER_MICRO;
+  }
+
+  public static Timestamp fromMicros(Long micros) {
+    if (micros == null) return null;
+    long seconds = Math.floorDiv(micros, MICROS_PER_SECOND);
+    int nanos = (int) Math.floorMod(micros, MICROS_PER_SECOND) * NANOS_PER_MICRO;
+    return new Timestamp(seconds, nanos);
+  }
+
+  @TypeConverter
+  public static String fromStringList(List<String> values) {
+    return values == null ? null : new JSONArray(values).toString();
+  }
+
+  @TypeConverter
+  public static List<String> toStringList(String json) {
+    if (json == null) return null;
+    try {
+      return readStringList(new JSONArray(json));
+    } catch (JSONException e) {
+      throw new IllegalStateException("Corrupted string list column", e);
+    }
+  }
+
+  @TypeConverter
+  public static String fromUserDtoMap(Map<String, UserDto> users) {
+    if (users == null) return null;
+    try {
+      JSONObject json = new JSONObject();
+      for (Map.Entry<String, UserDto> entry : users.entrySet()) {
+        json.put(entry.getKey(), writeUserDto(entry.getValue()));
+      }
+      return json.toString();
+    } catch (JSONException e) {
+      throw new IllegalStateException("Unable to serialize participant details", e);
+    }
+  }
+
+  @TypeConverter
+  public static Map<String, UserDto> toUserDtoMap(String value) {
+    if (value == null) return null;
+    try {
+      JSONObject json = new JSONObject(value);
+      Map<String, UserDto> users = new HashMap<>();
+      Iterator<String> keys = json.keys();
+      while (keys.hasNext()) {
+        String userId = keys.next();
+        users.put(userId, readUserDto(json.getJSONObject(userId)));
+      }
+      return users;
+    } catch (JSONException e) {
+      throw new IllegalStateException("Corrupted participant details column", e);
+    }
+  }
+
+  @TypeConverter
+  public static String fromMediaVariantList(List<MediaVariant> variants) {
+    if (variants == null) return null;
+    try {
+      JSONArray json = new JSONArray();
+      for (MediaVariant variant : variants) {
+        JSONObject value = new JSONObject();
+        value.put("rendition", variant.getRendition() != null ? variant.getRendition().name() : null);
+        value.put("url", variant.getUrl());
+        value.put("width", variant.getWidth());
+        value.put("height", variant.getHeight());
+        json.put(value);
+      }
+      return json.toString();
+    } catch (JSONException e) {
+      throw new IllegalStateException("Unable to serialize media variants", e);
+    }
+  }
+
+  @TypeConverter
+  public static List<MediaVariant> toMediaVariantList(String value) {
+    if (value == null) return null;
+    try {
+      JSONArray json = new JSONArray(value);
+      List<MediaVariant> variants = new ArrayList<>(json.length());
+      for (int i = 0; i < json.length(); i++) {
+        JSONObject item = json.getJSONObject(i);
+        String rendition = item.optString("rendition", null);
+        variants.add(
+            MediaVariant.builder()
+                .rendition(rendition != null ? MediaRendition.valueOf(rendition) : null)
+                .url(item.optString("url", null))
+                .width(item.optInt("width"))
+                .height(item.optInt("height"))
+                .build());
+      }
+      return variants;
+    } catch (JSONException | IllegalArgumentException e) {
+      throw new IllegalStateException("Corrupted media variants column", e);
+    }
+  }
+
+  private static JSONObject writeUserDto(UserDto user) throws JSONException {
+    JSONObject json = new JSONObject();
+    json.put("user_id", user.getUserId());
+    json.put("display_name", user.getDisplayName());
+    json.put("profile_image_url", user.getProfileImageUrl());
+    json.put("last_seen", toMicros(user.getLastSeen()));
+    json.put("is_online", user.isOnline());
+    json.put("fcm_tokens", new JSONArray(user.getFcmTokens() != null ? user.getFcmTokens() : new ArrayList<>()));
+    return json;
+  }
+
+  private static UserDto readUserDto(JSONObject json) throws JSONException {
+    return UserDto.builder()
+        .userId(json.optString("user_id", null))
+        .displayName(json.optString("display_name", null))
+        .profileImageUrl(json.optString("profile_image_url", null))
+        .lastSeen(json.has("last_seen") ? fromMicros(json.getLong("last_seen")) : null)
+        .isOnline(json.optBoolean("is_online"))
+        .fcmTokens(readStringList(json.optJSONArray("fcm_tokens")))
+        .build();
+  }
+
+  private static List<String> readStringList(JSONArray array) throws JSONException {
+    List<String> values = new ArrayList<>();
+    if (array == null) return values;
+    for (int i = 0; i < array.length(); i++) {
+      values.add(array.getString(i));
+    }
+    return values;
+  }
+}
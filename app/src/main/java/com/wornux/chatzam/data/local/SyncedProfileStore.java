@@ -0,0 +1,74 @@
+package com.wornux.chatzam.data.local;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.wornux.chatzam.utils.PreferenceConstants;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class SyncedProfileStore {
+
+  private static final String TAG = "SyncedProfileStore";
+  private static final String SYNCED_AT_KEY = "synced_at";
+  private static final long MAX_AGE_MS = 24 * 60 * 60 * 1000L;
+
+  private final SharedPreferences preferences;
+
+  @Inject
+  public SyncedProfileStore(SharedPreferences preferences) {
+    this.preferences = preferences;
+  }
+
+  public Map<String, String> get(String userId) {
+    String json = preferences.getString(key(userId), null);
+    if (json == null) return null;
+
+    try {
+      JSONObject object = new JSONObject(json);
+      if (System.currentTimeMillis() - object.optLong(SYNCED_AT_KEY) > MAX_AGE_MS) {
+        return null;
+      }
+
+      Map<String, String> projection = new HashMap<>();
+      Iterator<String> keys = object.keys();
+      while (keys.hasNext()) {
+        String field = keys.next();
+        if (!SYNCED_AT_KEY.equals(field)) {
+          projection.put(field, object.isNull(field) ? null : object.getString(field));
+        }
+      }
+      return projection;
+    } catch (JSONException e) {
+      Log.w(TAG, "Discarding unreadable synced profile", e);
+      return null;
+    }
+  }
+
+  public void put(String userId, Map<String, String> projection) {
+    try {
+      JSONObject object = new JSONObject();
+      for (Map.Entry<String, String> entry : projection.entrySet()) {
+        object.put(entry.getKey(), entry.getValue() != null ? entry.getValue() : JSONObject.NULL);
+      }
+      object.put(SYNCED_AT_KEY, System.currentTimeMillis());
+      preferences.edit().putString(key(userId), object.toString()).apply();
+    } catch (JSONException e) {
+      Log.w(TAG, "Failed to persist synced profile", e);
+    }
+  }
+
+  public void clear(String userId) {
+    preferences.edit().remove(key(userId)).apply();
+  }
+
+  private String key(String userId) {
+    return PreferenceConstants.KEY_SYNCED_PROFILE_PREFIX + userId;
+  }
+}
@@ -0,0 +1,42 @@
+package com.wornux.chatzam.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Upsert;
+import com.wornux.chatzam.data.local.entities.LocalChat;
+
+import java.util.List;
+
+@Dao
+public abstract class ChatDao {
+
+  @Query(
+      "SELECT * FROM chats WHERE participants LIKE '%\"' || :userId || '\"%'"
+          + " ORDER BY last_message_timestamp DESC")
+  public abstract LiveData<List<LocalChat>> observeByParticipant(String userId);
+
+  @Upsert
+  public abstract void upsertAll(List<LocalChat> chats);
+
+  @Query("DELETE FROM chats WHERE chat_id IN (:chatIds)")
+  public abstract void deleteByIds(List<String> chatIds);
+
+  @Query(
+      "DELETE FROM chats WHERE participants LIKE '%\"' || :userId || '\"%'"
+          + " AND chat_id NOT IN (:keepChatIds)")
+  public abstract void deleteByParticipantExcept(String userId, List<String> keepChatIds);
+
+  @Transaction
+  public void applyChanges(List<LocalChat> upserts, List<String> removedChatIds) {
+    if (!upserts.isEmpty()) upsertAll(upserts);
+    if (!removedChatIds.isEmpty()) deleteByIds(removedChatIds);
+  }
+
+  @Transaction
+  public void replaceForParticipant(String userId, List<LocalChat> chats, List<String> chatIds) {
+    deleteByParticipantExcept(userId, chatIds);
+    if (!chats.isEmpty()) upsertAll(chats);
+  }
+}
@@ -0,0 +1,35 @@
+package com.wornux.chatzam.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.wornux.chatzam.data.local.entities.MediaUpload;
+
+import java.util.List;
+
+@Dao
+public interface MediaUploadDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insertAll(List<MediaUpload> uploads);
+
+  @Query("SELECT * FROM media_uploads WHERE message_id = :messageId ORDER BY width ASC")
+  List<MediaUpload> getByMessage(String messageId);
+
+  @Query("SELECT COUNT(*) FROM media_uploads WHERE message_id = :messageId")
+  int countByMessage(String messageId);
+
+  @Query(
+      "UPDATE media_uploads SET session_uri = :sessionUri"
+          + " WHERE message_id = :messageId AND rendition = :rendition")
+  void updateSession(String messageId, String rendition, String sessionUri);
+
+  @Query(
+      "UPDATE media_uploads SET download_url = :downloadUrl, session_uri = NULL"
+          + " WHERE message_id = :messageId AND rendition = :rendition")
+  void markUploaded(String messageId, String rendition, String downloadUrl);
+
+  @Query("DELETE FROM media_uploads WHERE message_id = :messageId")
+  void deleteByMessage(String messageId);
+}
@@ -0,0 +1,33 @@
+package com.wornux.chatzam.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Upsert;
+import com.wornux.chatzam.data.local.entities.LocalMessage;
+
+import java.util.List;
+
+@Dao
+public interface MessageDao {
+
+  @Query(
+      "SELECT * FROM (SELECT * FROM messages WHERE chat_id = :chatId"
+          + " ORDER BY timestamp DESC, message_id DESC LIMIT :limit)"
+          + " ORDER BY timestamp ASC, message_id ASC")
+  LiveData<List<LocalMessage>> observeLatest(String chatId, int limit);
+
+  @Query("SELECT MAX(timestamp) FROM messages WHERE chat_id = :chatId")
+  Long getLatestTimestamp(String chatId);
+
+  @Upsert
+  void upsertAll(List<LocalMessage> messages);
+
+  @Query("DELETE FROM messages WHERE message_id IN (:messageIds)")
+  void deleteByIds(List<String> messageIds);
+
+  @Query(
+      "DELETE FROM messages WHERE chat_id = :chatId AND timestamp >= :since"
+          + " AND message_id NOT IN (:keepIds)")
+  void deleteMissing(String chatId, long since, List<String> keepIds);
+}
@@ -0,0 +1,50 @@
+package com.wornux.chatzam.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.wornux.chatzam.data.local.entities.OutboxMessage;
+
+import java.util.List;
+
+@Dao
+public interface OutboxDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insert(OutboxMessage message);
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insertAll(List<OutboxMessage> messages);
+
+  @Query(
+      "SELECT * FROM outbox_messages WHERE send_status = 'PENDING'"
+          + " ORDER BY queued_at ASC, message_id ASC LIMIT :limit")
+  List<OutboxMessage> getOldest(int limit);
+
+  @Query("SELECT * FROM outbox_messages WHERE message_id = :messageId")
+  OutboxMessage getById(String messageId);
+
+  @Query("SELECT * FROM outbox_messages WHERE chat_id = :chatId ORDER BY message_id ASC")
+  LiveData<List<OutboxMessage>> observeByChat(String chatId);
+
+  @Query("DELETE FROM outbox_messages WHERE message_id IN (:messageIds)")
+  void deleteByIds(List<String> messageIds);
+
+  @Query(
+      "UPDATE outbox_messages SET attempt_count = attempt_count + 1"
+          + " WHERE message_id IN (:messageIds)")
+  void incrementAttempts(List<String> messageIds);
+
+  @Query("UPDATE outbox_messages SET send_status = 'FAILED' WHERE message_id IN (:messageIds)")
+  void markFailed(List<String> messageIds);
+
+  @Query("UPDATE outbox_messages SET send_status = 'FAILED' WHERE attempt_count >= :maxAttempts")
+  void failExhausted(int maxAttempts);
+
+  @Query(
+      "UPDATE outbox_messages SET send_status = :sendStatus, attempt_count = 0"
+          + " WHERE message_id = :messageId")
+  int resetForRetry(String messageId, String sendStatus);
+}
@@ -0,0 +1,33 @@
+package com.wornux.chatzam.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Upsert;
+import com.wornux.chatzam.data.local.entities.LocalUser;
+
+import java.util.List;
+
+@Dao
+public interface UserDao {
+
+  @Query("SELECT * FROM users")
+  List<LocalUser> getAll();
+
+  @Query("SELECT * FROM users ORDER BY updated_at DESC, user_id DESC LIMIT 1")
+  LocalUser getLatestUpdated();
+
+  @Query("SELECT COUNT(*) FROM users")
+  int count();
+
+  @Query("SELECT user_id FROM users ORDER BY updated_at DESC, user_id DESC LIMIT -1 OFFSET :keep")
+  List<String> getIdsBeyond(int keep);
+
+  @Query(
+      "DELETE FROM users WHERE user_id IN"
+          + " (SELECT user_id FROM users ORDER BY updated_at DESC, user_id DESC"
+          + " LIMIT -1 OFFSET :keep)")
+  void deleteBeyond(int keep);
+
+  @Upsert
+  void upsertAll(List<LocalUser> users);
+}
@@ -0,0 +1,120 @@
+package com.wornux.chatzam.data.local.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.entities.Chat;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.ChatType;
+import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.local.LocalConverters;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Entity(tableName = "chats")
+@EqualsAndHashCode
+public class LocalChat {
+
+  @PrimaryKey
+  @NonNull
+  @ColumnInfo(name = "chat_id")
+  public String chatId = "";
+
+  @ColumnInfo(name = "participants")
+  public List<String> participants;
+
+  @ColumnInfo(name = "participant_details")
+  public Map<String, UserDto> participantDetails;
+
+  @ColumnInfo(name = "chat_type")
+  public String chatType;
+
+  @ColumnInfo(name = "last_message_id")
+  public String lastMessageId;
+
+  @ColumnInfo(name = "last_message_sender_id")
+  public String lastMessageSenderId;
+
+  @ColumnInfo(name = "last_message_content")
+  public String lastMessageContent;
+
+  @ColumnInfo(name = "last_message_type")
+  public String lastMessageType;
+
+  @ColumnInfo(name = "last_message_timestamp")
+  public Long lastMessageTimestamp;
+
+  @ColumnInfo(name = "unread_count")
+  public int unreadCount;
+
+  @ColumnInfo(name = "group_name")
+  public String groupName;
+
+  @ColumnInfo(name = "group_image_url")
+  public String groupImageUrl;
+
+  @ColumnInfo(name = "created_by")
+  public String createdBy;
+
+  @ColumnInfo(name = "created_at")
+  public Long createdAt;
+
+  public static LocalChat from(Chat chat) {
+    LocalChat local = new LocalChat();
+    local.chatId = chat.getChatId();
+    local.participants = chat.getParticipants();
+    local.participantDetails = chat.getParticipantDetails();
+    local.chatType = chat.getChatType() != null ? chat.getChatType().name() : null;
+
+    Message lastMessage = chat.getLastMessage();
+    if (lastMessage != null) {
+      local.lastMessageId = lastMessage.getMessageId();
+      local.lastMessageSenderId = lastMessage.getSenderId();
+      local.lastMessageContent = lastMessage.getContent();
+      local.lastMessageType =
+          lastMessage.getMessageType() != null ? lastMessage.getMessageType().name() : null;
+    }
+
+    local.lastMessageTimestamp = LocalConverters.toMicros(chat.getLastMessageTimestamp());
+    local.unreadCount = chat.getUnreadCount();
+    local.groupName = chat.getGroupName();
+    local.groupImageUrl = chat.getGroupImageUrl();
+    local.createdBy = chat.getCreatedBy();
+    local.createdAt = LocalConverters.toMicros(chat.getCreatedAt());
+    return local;
+  }
+
+  public Chat toChat() {
+    Message lastMessage = null;
+    if (lastMessageId != null || lastMessageContent != null) {
+      lastMessage =
+          Message.builder()
+              .messageId(lastMessageId)
+              .chatId(chatId)
+              .senderId(lastMessageSenderId)
+              .content(lastMessageContent)
+              .messageType(lastMessageType != null ? MessageType.valueOf(lastMessageType) : null)
+              .timestamp(LocalConverters.fromMicros(lastMessageTimestamp))
+              .build();
+    }
+
+    return Chat.builder()
+        .chatId(chatId)
+        .participants(participants != null ? participants : new ArrayList<>())
+        .participantDetails(participantDetails)
+        .chatType(chatType != null ? ChatType.valueOf(chatType) : null)
+        .lastMessage(lastMessage)
+        .lastMessageTimestamp(LocalConverters.fromMicros(lastMessageTimestamp))
+        .unreadCount(unreadCount)
+        .groupName(groupName)
+        .groupImageUrl(groupImageUrl)
+        .createdBy(createdBy)
+        .createdAt(LocalConverters.fromMicros(createdAt))
+        .build();
+  }
+}
@@ -0,0 +1,113 @@
+package com.wornux.chatzam.data.local.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.local.LocalConverters;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity(
+    tableName = "messages",
+    indices = {@Index(value = {"chat_id", "timestamp"})})
+@EqualsAndHashCode
+public class LocalMessage {
+
+  @PrimaryKey
+  @NonNull
+  @ColumnInfo(name = "message_id")
+  public String messageId = "";
+
+  @ColumnInfo(name = "chat_id")
+  public String chatId;
+
+  @ColumnInfo(name = "sender_id")
+  public String senderId;
+
+  @ColumnInfo(name = "sender_name")
+  public String senderName;
+
+  @ColumnInfo(name = "receiver_id")
+  public String receiverId;
+
+  @ColumnInfo(name = "content")
+  public String content;
+
+  @ColumnInfo(name = "message_type")
+  public String messageType;
+
+  @ColumnInfo(name = "timestamp")
+  public long timestamp;
+
+  @ColumnInfo(name = "read_by")
+  public List<String> readBy;
+
+  @ColumnInfo(name = "media_url")
+  public String mediaUrl;
+
+  @ColumnInfo(name = "media_variants")
+  public List<MediaVariant> mediaVariants;
+
+  @ColumnInfo(name = "media_width")
+  public Integer mediaWidth;
+
+  @ColumnInfo(name = "media_height")
+  public Integer mediaHeight;
+
+  @ColumnInfo(name = "media_placeholder")
+  public String mediaPlaceholder;
+
+  public static LocalMessage from(Message message) {
+    LocalMessage local = new LocalMessage();
+    local.messageId = message.getMessageId();
+    local.chatId = message.getChatId();
+    local.senderId = message.getSenderId();
+    local.senderName = message.getSenderName();
+    local.receiverId = message.getReceiverId();
+    local.content = message.getContent();
+    local.messageType = message.getMessageType() != null ? message.getMessageType().name() : null;
+    Long micros = LocalConverters.toMicros(message.getTimestamp());
+    local.timestamp = micros != null ? micros : 0L;
+    local.readBy = message.getReadBy();
+    local.mediaUrl = message.getMediaUrl();
+    local.mediaVariants = message.getMediaVariants();
+    local.mediaWidth = message.getMediaWidth();
+    local.mediaHeight = message.getMediaHeight();
+    local.mediaPlaceholder = message.getMediaPlaceholder();
+    return local;
+  }
+
+  public static List<LocalMessage> fromMessages(List<Message> messages) {
+    List<LocalMessage> locals = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      locals.add(from(message));
+    }
+    return locals;
+  }
+
+  public Message toMessage() {
+    return Message.builder()
+        .messageId(messageId)
+        .chatId(chatId)
+        .senderId(senderId)
+        .senderName(senderName)
+        .receiverId(receiverId)
+        .content(content)
+        .messageType(messageType != null ? MessageType.valueOf(messageType) : null)
+        .timestamp(LocalConverters.fromMicros(timestamp))
+        .readBy(readBy != null ? readBy : new ArrayList<>())
+        .mediaUrl(mediaUrl)
+        .mediaVariants(mediaVariants != null ? mediaVariants : new ArrayList<>())
+        .mediaWidth(mediaWidth != null ? mediaWidth : 0)
+        .mediaHeight(mediaHeight != null ? mediaHeight : 0)
+        .mediaPlaceholder(mediaPlaceholder)
+        .build();
+  }
+}
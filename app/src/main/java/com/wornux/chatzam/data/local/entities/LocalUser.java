@@ -0,0 +1,76 @@
+package com.wornux.chatzam.data.local.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import com.wornux.chatzam.data.entities.User;
+import com.wornux.chatzam.data.enums.UserStatus;
+import com.wornux.chatzam.data.local.LocalConverters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity(tableName = "users")
+public class LocalUser {
+
+  @PrimaryKey
+  @NonNull
+  @ColumnInfo(name = "user_id")
+  public String userId = "";
+
+  @ColumnInfo(name = "email")
+  public String email;
+
+  @ColumnInfo(name = "display_name")
+  public String displayName;
+
+  @ColumnInfo(name = "profile_image_url")
+  public String profileImageUrl;
+
+  @ColumnInfo(name = "is_online")
+  public boolean isOnline;
+
+  @ColumnInfo(name = "last_seen")
+  public Long lastSeen;
+
+  @ColumnInfo(name = "status")
+  public String status;
+
+  @ColumnInfo(name = "updated_at")
+  public Long updatedAt;
+
+  public static LocalUser from(User user) {
+    LocalUser local = new LocalUser();
+    local.userId = user.getUserId();
+    local.email = user.getEmail();
+    local.displayName = user.getDisplayName();
+    local.profileImageUrl = user.getProfileImageUrl();
+    local.isOnline = user.isOnline();
+    local.lastSeen = LocalConverters.toMicros(user.getLastSeen());
+    local.status = user.getStatus() != null ? user.getStatus().name() : null;
+    local.updatedAt = LocalConverters.toMicros(user.getUpdatedAt());
+    return local;
+  }
+
+  public static List<LocalUser> fromUsers(List<User> users) {
+    List<LocalUser> locals = new ArrayList<>(users.size());
+    for (User user : users) {
+      locals.add(from(user));
+    }
+    return locals;
+  }
+
+  public User toUser() {
+    return User.builder()
+        .userId(userId)
+        .email(email)
+        .displayName(displayName)
+        .profileImageUrl(profileImageUrl)
+        .isOnline(isOnline)
+        .lastSeen(LocalConverters.fromMicros(lastSeen))
+        .status(status != null ? UserStatus.valueOf(status) : null)
+        .updatedAt(LocalConverters.fromMicros(updatedAt))
+        .build();
+  }
+}
@@ -0,0 +1,114 @@
+package com.wornux.chatzam.data.local.entities;
+
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.enums.MediaRendition;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One rendition of a queued image message waiting for, or in the middle of, its upload. The
+ * storage session URI is kept so an interrupted upload resumes from the last committed offset
+ * instead of starting over.
+ */
+@Entity(
+    tableName = "media_uploads",
+    primaryKeys = {"message_id", "rendition"})
+public class MediaUpload {
+
+  @NonNull
+  @ColumnInfo(name = "message_id")
+  public String messageId = "";
+
+  @NonNull
+  @ColumnInfo(name = "rendition")
+  public String rendition = "";
+
+  @ColumnInfo(name = "file_path")
+  public String filePath;
+
+  @ColumnInfo(name = "content_type")
+  public String contentType;
+
+  @ColumnInfo(name = "width")
+  public int width;
+
+  @ColumnInfo(name = "height")
+  public int height;
+
+  @ColumnInfo(name = "storage_path")
+  public String storagePath;
+
+  @ColumnInfo(name = "session_uri")
+  public String sessionUri;
+
+  @ColumnInfo(name = "download_url")
+  public String downloadUrl;
+
+  public static MediaUpload of(
+      String messageId,
+      MediaRendition rendition,
+      File file,
+      String contentType,
+      int width,
+      int height) {
+    MediaUpload upload = new MediaUpload();
+    upload.messageId = messageId;
+    upload.rendition = rendition.name();
+    upload.filePath = file.getAbsolutePath();
+    upload.contentType = contentType;
+    upload.width = width;
+    upload.height = height;
+    upload.storagePath = "images/" + file.getName();
+    return upload;
+  }
+
+  public File getFile() {
+    return new File(filePath);
+  }
+
+  public boolean isUploaded() {
+    return downloadUrl != null;
+  }
+
+  /** The remote variant once uploaded, or the local file while the upload is still pending. */
+  public MediaVariant toVariant() {
+    return toVariant(MediaRendition.valueOf(rendition));
+  }
+
+  private MediaVariant toVariant(MediaRendition variantRendition) {
+    return MediaVariant.builder()
+        .rendition(variantRendition)
+        .url(isUploaded() ? downloadUrl : Uri.fromFile(getFile()).toString())
+        .width(width)
+        .height(height)
+        .build();
+  }
+
+  /**
+   * Variants for a message's uploads, ordered from smallest to largest. Renditions that were not
+   * encoded because the image is already smaller point at the largest upload's file.
+   */
+  public static List<MediaVariant> toVariants(List<MediaUpload> uploads) {
+    List<MediaVariant> variants = new ArrayList<>(MediaRendition.values().length);
+    MediaUpload largest = null;
+    for (MediaUpload upload : uploads) {
+      variants.add(upload.toVariant());
+      largest = upload;
+    }
+    if (largest == null) return variants;
+
+    int largestMaxDimension = MediaRendition.valueOf(largest.rendition).getMaxDimension();
+    for (MediaRendition candidate : MediaRendition.values()) {
+      if (candidate.getMaxDimension() > largestMaxDimension) {
+        variants.add(largest.toVariant(candidate));
+      }
+    }
+    return variants;
+  }
+}
@@ -0,0 +1,122 @@
+package com.wornux.chatzam.data.local.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.enums.SendStatus;
+import com.wornux.chatzam.data.local.LocalConverters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity(
+    tableName = "outbox_messages",
+    indices = {@Index(value = {"chat_id"})})
+public class OutboxMessage {
+
+  @PrimaryKey
+  @NonNull
+  @ColumnInfo(name = "message_id")
+  public String messageId = "";
+
+  @ColumnInfo(name = "chat_id")
+  public String chatId;
+
+  @ColumnInfo(name = "sender_id")
+  public String senderId;
+
+  @ColumnInfo(name = "sender_name")
+  public String senderName;
+
+  @ColumnInfo(name = "receiver_id")
+  public String receiverId;
+
+  @ColumnInfo(name = "content")
+  public String content;
+
+  @ColumnInfo(name = "message_type")
+  public String messageType;
+
+  @ColumnInfo(name = "timestamp")
+  public long timestamp;
+
+  @ColumnInfo(name = "media_url")
+  public String mediaUrl;
+
+  @ColumnInfo(name = "media_variants")
+  public List<MediaVariant> mediaVariants;
+
+  @ColumnInfo(name = "media_width")
+  public Integer mediaWidth;
+
+  @ColumnInfo(name = "media_height")
+  public Integer mediaHeight;
+
+  @ColumnInfo(name = "media_placeholder")
+  public String mediaPlaceholder;
+
+  @ColumnInfo(name = "attempt_count")
+  public int attemptCount;
+
+  @ColumnInfo(name = "queued_at")
+  public long queuedAt;
+
+  @ColumnInfo(name = "send_status")
+  public String sendStatus;
+
+  public static OutboxMessage from(Message message) {
+    OutboxMessage outbox = new OutboxMessage();
+    outbox.messageId = message.getMessageId();
+    outbox.chatId = message.getChatId();
+    outbox.senderId = message.getSenderId();
+    outbox.senderName = message.getSenderName();
+    outbox.receiverId = message.getReceiverId();
+    outbox.content = message.getContent();
+    outbox.messageType = message.getMessageType() != null ? message.getMessageType().name() : null;
+    Long micros = LocalConverters.toMicros(message.getTimestamp());
+    outbox.timestamp = micros != null ? micros : 0L;
+    outbox.mediaUrl = message.getMediaUrl();
+    outbox.mediaVariants = message.getMediaVariants();
+    outbox.mediaWidth = message.getMediaWidth();
+    outbox.mediaHeight = message.getMediaHeight();
+    outbox.mediaPlaceholder = message.getMediaPlaceholder();
+    outbox.queuedAt = System.currentTimeMillis();
+    outbox.sendStatus =
+        message.getSendStatus() == SendStatus.UPLOADING
+            ? SendStatus.UPLOADING.name()
+            : SendStatus.PENDING.name();
+    return outbox;
+  }
+
+  public static List<Message> toMessages(List<OutboxMessage> outboxMessages) {
+    List<Message> messages = new ArrayList<>(outboxMessages.size());
+    for (OutboxMessage outbox : outboxMessages) {
+      messages.add(outbox.toMessage());
+    }
+    return messages;
+  }
+
+  public Message toMessage() {
+    return Message.builder()
+        .messageId(messageId)
+        .chatId(chatId)
+        .senderId(senderId)
+        .senderName(senderName)
+        .receiverId(receiverId)
+        .content(content)
+        .messageType(messageType != null ? MessageType.valueOf(messageType) : null)
+        .timestamp(LocalConverters.fromMicros(timestamp))
+        .mediaUrl(mediaUrl)
+        .mediaVariants(mediaVariants != null ? mediaVariants : new ArrayList<>())
+        .mediaWidth(mediaWidth != null ? mediaWidth : 0)
+        .mediaHeight(mediaHeight != null ? mediaHeight : 0)
+        .mediaPlaceholder(mediaPlaceholder)
+        .sendStatus(sendStatus != null ? SendStatus.valueOf(sendStatus) : SendStatus.PENDING)
+        .build();
+  }
+}
@@ -0,0 +1,85 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.entities.Chat;
+import com.wornux.chatzam.data.enums.ChatType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class ChatMapper implements FirestoreMapper<Chat> {
+    
+    public static final ChatMapper INSTANCE = new ChatMapper();
+    
+    private ChatMapper() {
+        //not required
+    }
+    
+    @Override
+    public Chat fromMap(Map<String, Object> data) {
+        Chat chat = new Chat();
+        chat.setChatId(FirestoreValues.getString(data, "chat_id"));
+        chat.setParticipants(FirestoreValues.getStringList(data, "participants"));
+        chat.setParticipantDetails(readParticipantDetails(FirestoreValues.getMap(data, "participant_details")));
+        chat.setChatType(FirestoreValues.getEnum(data, "chat_type", ChatType.class));
+        
+        Map<String, Object> lastMessage = FirestoreValues.getMap(data, "last_message");
+        chat.setLastMessage(lastMessage != null ? MessageMapper.INSTANCE.fromMap(lastMessage) : null);
+        
+        chat.setLastMessageTimestamp(FirestoreValues.getTimestamp(data, "last_message_timestamp"));
+        chat.setUnreadCount(FirestoreValues.getInt(data, "unread_count"));
+        chat.setGroupName(FirestoreValues.getString(data, "group_name"));
+        chat.setGroupImageUrl(FirestoreValues.getString(data, "group_image_url"));
+        chat.setCreatedBy(FirestoreValues.getString(data, "created_by"));
+        if (data.containsKey("created_at")) {
+            chat.setCreatedAt(FirestoreValues.getTimestamp(data, "created_at"));
+        }
+        chat.setEncryptionKey(FirestoreValues.getString(data, "encryption_key"));
+        return chat;
+    }
+    
+    @Override
+    public Map<String, Object> toMap(Chat chat) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("chat_id", chat.getChatId());
+        data.put("participants", chat.getParticipants());
+        data.put("participant_details", writeParticipantDetails(chat.getParticipantDetails()));
+        data.put("chat_type", FirestoreValues.enumName(chat.getChatType()));
+        data.put("last_message",
+                chat.getLastMessage() != null ? MessageMapper.INSTANCE.toMap(chat.getLastMessage()) : null);
+        data.put("last_message_timestamp", chat.getLastMessageTimestamp());
+        data.put("unread_count", chat.getUnreadCount());
+        data.put("group_name", chat.getGroupName());
+        data.put("group_image_url", chat.getGroupImageUrl());
+        data.put("created_by", chat.getCreatedBy());
+        data.put("created_at", chat.getCreatedAt());
+        data.put("encryption_key", chat.getEncryptionKey());
+        return data;
+    }
+    
+    private Map<String, UserDto> readParticipantDetails(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        Map<String, UserDto> participantDetails = new HashMap<>();
+        for (String userId : data.keySet()) {
+            Map<String, Object> userData = FirestoreValues.getMap(data, userId);
+            if (userData != null) {
+                participantDetails.put(userId, UserDtoMapper.INSTANCE.fromMap(userData));
+            }
+        }
+        return participantDetails;
+    }
+    
+    private Map<String, Object> writeParticipantDetails(Map<String, UserDto> participantDetails) {
+        if (participantDetails == null) {
+            return null;
+        }
+        Map<String, Object> data = new HashMap<>();
+        for (Map.Entry<String, UserDto> entry : participantDetails.entrySet()) {
+            data.put(entry.getKey(),
+                    entry.getValue() != null ? UserDtoMapper.INSTANCE.toMap(entry.getValue()) : null);
+        }
+        return data;
+    }
+}
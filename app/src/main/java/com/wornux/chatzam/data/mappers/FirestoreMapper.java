@@ -0,0 +1,31 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public interface FirestoreMapper<T> {
+    
+    T fromMap(Map<String, Object> data);
+    
+    Map<String, Object> toMap(T entity);
+    
+    default T fromSnapshot(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        return data != null ? fromMap(data) : null;
+    }
+    
+    default List<T> fromSnapshots(QuerySnapshot snapshot) {
+        List<T> entities = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            T entity = fromSnapshot(document);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
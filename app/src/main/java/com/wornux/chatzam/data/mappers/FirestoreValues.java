@@ -0,0 +1,87 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+final class FirestoreValues {
+    
+    private FirestoreValues() {
+        //not required
+    }
+    
+    static String getString(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+    
+    static Timestamp getTimestamp(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value instanceof Date) {
+            return new Timestamp((Date) value);
+        }
+        return value instanceof Timestamp ? (Timestamp) value : null;
+    }
+    
+    static boolean getBoolean(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Boolean && (Boolean) value;
+    }
+    
+    static int getInt(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+    
+    static List<String> getStringList(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        List<String> strings = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof String) {
+                    strings.add((String) item);
+                }
+            }
+        }
+        return strings;
+    }
+    
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> getMap(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> getMapList(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        List<Map<String, Object>> maps = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof Map) {
+                    maps.add((Map<String, Object>) item);
+                }
+            }
+        }
+        return maps;
+    }
+    
+    static <E extends Enum<E>> E getEnum(Map<String, Object> data, String field, Class<E> enumClass) {
+        String value = getString(data, field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumClass, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    static String enumName(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import com.wornux.chatzam.data.enums.MessageType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class MessageMapper implements FirestoreMapper<Message> {
+    
+    public static final MessageMapper INSTANCE = new MessageMapper();
+    
+    private MessageMapper() {
+        //not required
+    }
+    
+    @Override
+    public Message fromMap(Map<String, Object> data) {
+        Message message = new Message();
+        message.setMessageId(FirestoreValues.getString(data, "message_id"));
+        message.setSenderId(FirestoreValues.getString(data, "sender_id"));
+        message.setSenderName(FirestoreValues.getString(data, "sender_name"));
+        message.setReceiverId(FirestoreValues.getString(data, "receiver_id"));
+        message.setChatId(FirestoreValues.getString(data, "chat_id"));
+        message.setContent(FirestoreValues.getString(data, "content"));
+        message.setEncryptedContent(FirestoreValues.getString(data, "encrypted_content"));
+        message.setMessageType(FirestoreValues.getEnum(data, "message_type", MessageType.class));
+        if (data.containsKey("timestamp")) {
+            message.setTimestamp(FirestoreValues.getTimestamp(data, "timestamp"));
+        }
+        message.setReadBy(FirestoreValues.getStringList(data, "read_by"));
+        message.setMediaUrl(FirestoreValues.getString(data, "media_url"));
+        message.setMediaVariants(readVariants(FirestoreValues.getMapList(data, "media_variants")));
+        message.setMediaWidth(FirestoreValues.getInt(data, "media_width"));
+        message.setMediaHeight(FirestoreValues.getInt(data, "media_height"));
+        message.setMediaPlaceholder(FirestoreValues.getString(data, "media_placeholder"));
+        return message;
+    }
+    
+    @Override
+    public Map<String, Object> toMap(Message message) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("message_id", message.getMessageId());
+        data.put("sender_id", message.getSenderId());
+        data.put("sender_name", message.getSenderName());
+        data.put("receiver_id", message.getReceiverId());
+        data.put("chat_id", message.getChatId());
+        data.put("content", message.getContent());
+        data.put("encrypted_content", message.getEncryptedContent());
+        data.put("message_type", FirestoreValues.enumName(message.getMessageType()));
+        data.put("timestamp", message.getTimestamp());
+        data.put("read_by", message.getReadBy());
+        data.put("media_url", message.getMediaUrl());
+        if (message.getMediaVariants() != null && !message.getMediaVariants().isEmpty()) {
+            data.put("media_variants", writeVariants(message.getMediaVariants()));
+        }
+        if (message.getMediaWidth() > 0 && message.getMediaHeight() > 0) {
+            data.put("media_width", message.getMediaWidth());
+            data.put("media_height", message.getMediaHeight());
+        }
+        if (message.getMediaPlaceholder() != null) {
+            data.put("media_placeholder", message.getMediaPlaceholder());
+        }
+        return data;
+    }
+    
+    private static List<MediaVariant> readVariants(List<Map<String, Object>> values) {
+        List<MediaVariant> variants = new ArrayList<>(values.size());
+        for (Map<String, Object> value : values) {
+            variants.add(MediaVariant.builder()
+                    .rendition(FirestoreValues.getEnum(value, "rendition", MediaRendition.class))
+                    .url(FirestoreValues.getString(value, "url"))
+                    .width(FirestoreValues.getInt(value, "width"))
+                    .height(FirestoreValues.getInt(value, "height"))
+                    .build());
+        }
+        return variants;
+    }
+    
+    private static List<Map<String, Object>> writeVariants(List<MediaVariant> variants) {
+        List<Map<String, Object>> values = new ArrayList<>(variants.size());
+        for (MediaVariant variant : variants) {
+            Map<String, Object> value = new HashMap<>();
+            value.put("rendition", FirestoreValues.enumName(variant.getRendition()));
+            value.put("url", variant.getUrl());
+            value.put("width", variant.getWidth());
+            value.put("height", variant.getHeight());
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,39 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.wornux.chatzam.data.dto.UserDto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class UserDtoMapper implements FirestoreMapper<UserDto> {
+    
+    public static final UserDtoMapper INSTANCE = new UserDtoMapper();
+    
+    private UserDtoMapper() {
+        //not required
+    }
+    
+    @Override
+    public UserDto fromMap(Map<String, Object> data) {
+        UserDto userDto = new UserDto();
+        userDto.setUserId(FirestoreValues.getString(data, "user_id"));
+        userDto.setDisplayName(FirestoreValues.getString(data, "display_name"));
+        userDto.setProfileImageUrl(FirestoreValues.getString(data, "profile_image_url"));
+        userDto.setLastSeen(FirestoreValues.getTimestamp(data, "last_seen"));
+        userDto.setOnline(FirestoreValues.getBoolean(data, "is_online"));
+        userDto.setFcmTokens(FirestoreValues.getStringList(data, "fcm_tokens"));
+        return userDto;
+    }
+    
+    @Override
+    public Map<String, Object> toMap(UserDto userDto) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("user_id", userDto.getUserId());
+        data.put("display_name", userDto.getDisplayName());
+        data.put("profile_image_url", userDto.getProfileImageUrl());
+        data.put("last_seen", userDto.getLastSeen());
+        data.put("is_online", userDto.isOnline());
+        data.put("fcm_tokens", userDto.getFcmTokens());
+        return data;
+    }
+}
@@ -0,0 +1,65 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FieldValue;
+import com.wornux.chatzam.data.entities.User;
+import com.wornux.chatzam.data.enums.UserStatus;
+import com.wornux.chatzam.utils.SearchKeyUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class UserMapper implements FirestoreMapper<User> {
+    
+    public static final UserMapper INSTANCE = new UserMapper();
+    
+    private UserMapper() {
+        //not required
+    }
+    
+    @Override
+    public User fromMap(Map<String, Object> data) {
+        User user = new User();
+        user.setUserId(FirestoreValues.getString(data, "user_id"));
+        user.setEmail(FirestoreValues.getString(data, "email"));
+        user.setDisplayName(FirestoreValues.getString(data, "display_name"));
+        user.setProfileImageUrl(FirestoreValues.getString(data, "profile_image_url"));
+        user.setOnline(FirestoreValues.getBoolean(data, "is_online"));
+        user.setLastSeen(FirestoreValues.getTimestamp(data, "last_seen"));
+        user.setStatus(FirestoreValues.getEnum(data, "status", UserStatus.class));
+        user.setFcmTokens(FirestoreValues.getStringList(data, "fcm_tokens"));
+        user.setFcmTokenLastSeen(readTokenLastSeen(FirestoreValues.getMap(data, "fcm_token_last_seen")));
+        user.setUpdatedAt(FirestoreValues.getTimestamp(data, "updated_at"));
+        return user;
+    }
+    
+    @Override
+    public Map<String, Object> toMap(User user) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("user_id", user.getUserId());
+        data.put("email", user.getEmail());
+        data.put("display_name", user.getDisplayName());
+        data.put("profile_image_url", user.getProfileImageUrl());
+        data.put("is_online", user.isOnline());
+        data.put("last_seen", user.getLastSeen());
+        data.put("status", FirestoreValues.enumName(user.getStatus()));
+        data.put("fcm_tokens", user.getFcmTokens());
+        data.put("fcm_token_last_seen", user.getFcmTokenLastSeen());
+        data.put("search_keys", SearchKeyUtils.buildSearchKeys(user.getDisplayName(), user.getEmail()));
+        data.put("updated_at", FieldValue.serverTimestamp());
+        return data;
+    }
+    
+    private Map<String, Timestamp> readTokenLastSeen(Map<String, Object> data) {
+        Map<String, Timestamp> lastSeen = new HashMap<>();
+        if (data != null) {
+            for (String token : data.keySet()) {
+                Timestamp timestamp = FirestoreValues.getTimestamp(data, token);
+                if (timestamp != null) {
+                    lastSeen.put(token, timestamp);
+                }
+            }
+        }
+        return lastSeen;
+    }
+}
@@ -2,43 +2,91 @@ package com.wornux.chatzam.data.repositories;
 
 import android.util.Log;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.wornux.chatzam.data.di.BackgroundExecutor;
 import com.wornux.chatzam.data.entities.Chat;
-import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.local.ChatZamDatabase;
+import com.wornux.chatzam.data.local.IncrementalRowMapper;
+import com.wornux.chatzam.data.local.dao.ChatDao;
+import com.wornux.chatzam.data.local.entities.LocalChat;
+import com.wornux.chatzam.data.mappers.ChatMapper;
 import com.wornux.chatzam.data.repositories.base.BaseRepository;
 import com.wornux.chatzam.services.FirebaseManager;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 @Singleton
 public class ChatRepository extends BaseRepository<Chat> {
 
+  private final ChatDao chatDao;
+  private final Executor localExecutor;
+
   @Inject
-  public ChatRepository(FirebaseManager firebaseManager) {
-    super(firebaseManager.getFirestore(), Chat.class);
+  public ChatRepository(
+      FirebaseManager firebaseManager,
+      ChatZamDatabase database,
+      @BackgroundExecutor Executor backgroundExecutor) {
+    super(firebaseManager.getFirestore(), Chat.class, ChatMapper.INSTANCE, backgroundExecutor);
+    this.chatDao = database.chatDao();
+    this.localExecutor = database.getTransactionExecutor();
   }
 
   public LiveData<List<Chat>> getChatsByParticipant(String userId) {
-    MutableLiveData<List<Chat>> chatsLiveData = new MutableLiveData<>();
+    return listenerRegistry.observe(
+        "participant:" + userId,
+        () -> syncChatsByParticipant(userId),
+        new IncrementalRowMapper<LocalChat, Chat>(local -> local.chatId, LocalChat::toChat)
+            .mapAsync(chatDao.observeByParticipant(userId), backgroundExecutor));
+  }
 
-    db.collection(collectionName)
+  private ListenerRegistration syncChatsByParticipant(String userId) {
+    boolean[] reconciled = {false};
+
+    return db.collection(collectionName)
         .whereArrayContains("participants", userId)
         .orderBy("last_message_timestamp", Query.Direction.DESCENDING)
         .addSnapshotListener(
+            backgroundExecutor,
             (value, error) -> {
-              if (error != null) Log.e("ChatRepository", "Error getting chats", error);
+              if (error != null) {
+                Log.e("ChatRepository", "Error getting chats", error);
+                return;
+              }
+              if (value == null) return;
+
+              if (!reconciled[0] && !value.getMetadata().isFromCache()) {
+                reconciled[0] = true;
+                List<LocalChat> chats = new ArrayList<>();
+                List<String> chatIds = new ArrayList<>();
+                for (DocumentSnapshot document : value.getDocuments()) {
+                  chats.add(LocalChat.from(toEntity(document)));
+                  chatIds.add(document.getId());
+                }
+                localExecutor.execute(() -> chatDao.replaceForParticipant(userId, chats, chatIds));
+                return;
+              }
 
-              if (error == null && value != null) {
-                List<Chat> chats = value.toObjects(Chat.class);
-                chatsLiveData.setValue(chats);
+              List<LocalChat> upserts = new ArrayList<>();
+              List<String> removedChatIds = new ArrayList<>();
+              for (DocumentChange change : value.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                  removedChatIds.add(change.getDocument().getId());
+                } else {
+                  upserts.add(LocalChat.from(toEntity(change.getDocument())));
+                }
               }
-            });
 
-    return chatsLiveData;
+              if (!upserts.isEmpty() || !removedChatIds.isEmpty()) {
+                localExecutor.execute(() -> chatDao.applyChanges(upserts, removedChatIds));
+              }
+            });
   }
 
   public Task<List<Chat>> getChatsByParticipantTask(String userId) {
@@ -46,9 +94,10 @@ public class ChatRepository extends BaseRepository<Chat> {
         .whereArrayContains("participants", userId)
         .get()
         .continueWith(
+            backgroundExecutor,
             task -> {
               if (task.isSuccessful() && task.getResult() != null) {
-                return task.getResult().toObjects(Chat.class);
+                return toEntities(task.getResult());
               }
               return new ArrayList<>();
             });
@@ -57,27 +106,24 @@ public class ChatRepository extends BaseRepository<Chat> {
   public Task<String> createChat(Chat chat) {
     return db.collection(collectionName)
         .document(chat.getChatId())
-        .set(chat)
+        .set(toData(chat))
         .continueWith(task -> chat.getChatId());
   }
 
   public Task<Chat> getChatById(String chatId) {
     return getDocument(chatId)
         .continueWith(
+            backgroundExecutor,
             task -> {
               if (task.getResult().exists()) {
-                return task.getResult().toObject(Chat.class);
+                return toEntity(task.getResult());
               }
               return null;
             });
   }
 
   public Task<Void> updateChat(Chat chat) {
-    return db.collection(collectionName).document(chat.getChatId()).set(chat);
-  }
-
-  public Task<Void> updateLastMessage(String chatId, Map<String, Object> lastMessageData) {
-    return updateDocument(chatId, lastMessageData);
+    return db.collection(collectionName).document(chat.getChatId()).set(toData(chat));
   }
 
   public Task<Void> updateParticipants(String chatId, List<String> participants) {
@@ -97,10 +143,4 @@ public class ChatRepository extends BaseRepository<Chat> {
     return updateDocument(chatId, updates);
   }
 
-  public Task<Void> updateSingleParticipantDetail(String chatId, String userId, UserDto userDTO) {
-    Map<String, Object> updates = new HashMap<>();
-    updates.put("participant_details." + userId, userDTO);
-    return updateDocument(chatId, updates);
-  }
-
 }
@@ -1,58 +1,246 @@
 package com.wornux.chatzam.data.repositories;
 
+import android.util.Log;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+import com.wornux.chatzam.data.di.BackgroundExecutor;
 import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.local.ChatZamDatabase;
+import com.wornux.chatzam.data.local.IncrementalRowMapper;
+import com.wornux.chatzam.data.local.LocalConverters;
+import com.wornux.chatzam.data.local.dao.MessageDao;
+import com.wornux.chatzam.data.local.entities.LocalMessage;
+import com.wornux.chatzam.data.mappers.MessageMapper;
 import com.wornux.chatzam.data.repositories.base.BaseRepository;
 import com.wornux.chatzam.services.FirebaseManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 @Singleton
 public class MessageRepository extends BaseRepository<Message> {
     
+    private static final String TAG = "MessageRepository";
     private static final String CHATS_COLLECTION = "chats";
     private static final String MESSAGES_SUBCOLLECTION = "messages";
+    private static final String TIMESTAMP_FIELD = "timestamp";
+    
+    private final MessageDao messageDao;
+    private final Executor localExecutor;
     
     @Inject
-    public MessageRepository(FirebaseManager firebaseManager) {
-        super(firebaseManager.getFirestore(), Message.class);
+    public MessageRepository(FirebaseManager firebaseManager, ChatZamDatabase database,
+                             @BackgroundExecutor Executor backgroundExecutor) {
+        super(firebaseManager.getFirestore(), Message.class, MessageMapper.INSTANCE, backgroundExecutor);
+        this.messageDao = database.messageDao();
+        this.localExecutor = database.getTransactionExecutor();
     }
     
-    public Task<String> createMessage(String chatId, Message message) {
-        String messageId = UUID.randomUUID().toString();
-        message.setMessageId(messageId);
+    public Task<Void> commitMessages(List<Message> messages, Map<String, Message> lastMessageByChat) {
+        WriteBatch batch = db.batch();
         
-        return db.collection(CHATS_COLLECTION)
-                .document(chatId)
-                .collection(MESSAGES_SUBCOLLECTION)
-                .document(messageId)
-                .set(message)
-                .continueWith(task -> messageId);
+        for (Message message : messages) {
+            batch.set(messagesCollection(message.getChatId()).document(message.getMessageId()), toData(message));
+        }
+        
+        for (Map.Entry<String, Message> entry : lastMessageByChat.entrySet()) {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("last_message", toData(entry.getValue()));
+            updates.put("last_message_timestamp", entry.getValue().getTimestamp());
+            batch.update(db.collection(CHATS_COLLECTION).document(entry.getKey()), updates);
+        }
+        
+        return batch.commit();
     }
     
-    public LiveData<List<Message>> getMessagesByChatId(String chatId) {
-        MutableLiveData<List<Message>> messagesLiveData = new MutableLiveData<>();
+    /** Ids of the messages that are on the server, read past the local cache and pending writes. */
+    public Task<List<String>> getCommittedIds(List<Message> messages) {
+        List<Task<DocumentSnapshot>> reads = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            reads.add(messagesCollection(message.getChatId())
+                    .document(message.getMessageId())
+                    .get(Source.SERVER));
+        }
         
-        db.collection(CHATS_COLLECTION)
-                .document(chatId)
-                .collection(MESSAGES_SUBCOLLECTION)
-                .orderBy("timestamp", Query.Direction.ASCENDING)
-                .addSnapshotListener((value, error) -> {
-                    if (error == null && value != null) {
-                        List<Message> messages = value.toObjects(Message.class);
-                        messagesLiveData.setValue(messages);
-                    }
+        return Tasks.whenAllSuccess(reads).onSuccessTask(snapshots -> {
+            List<String> committed = new ArrayList<>();
+            for (Object snapshot : snapshots) {
+                DocumentSnapshot document = (DocumentSnapshot) snapshot;
+                if (document.exists()) committed.add(document.getId());
+            }
+            return Tasks.forResult(committed);
+        });
+    }
+    
+    public LiveData<List<Message>> getLatestMessages(String chatId, int limit) {
+        LiveData<List<Message>> localWindow =
+                new IncrementalRowMapper<LocalMessage, Message>(local -> local.messageId, LocalMessage::toMessage)
+                        .mapAsync(messageDao.observeLatest(chatId, limit), backgroundExecutor);
+        
+        return listenerRegistry.observe(
+                "latest:" + chatId + ":" + limit,
+                () -> syncLatestMessages(chatId, limit),
+                localWindow);
+    }
+    
+    public Task<List<Message>> getMessagesBefore(String chatId, Message before, int limit) {
+        return messagesCollection(chatId)
+                .orderBy(TIMESTAMP_FIELD, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .startAfter(before.getTimestamp(), before.getMessageId())
+                .limit(limit)
+                .get()
+                .continueWith(localExecutor, task -> {
+                    List<Message> messages = toEntities(task.getResult());
+                    Collections.reverse(messages);
+                    messageDao.upsertAll(LocalMessage.fromMessages(messages));
+                    return messages;
                 });
+    }
+    
+    /**
+     * When Room already holds messages for the chat, only messages from the newest stored one on
+     * are fetched first. That delta
+     * misses edits, deletions and read receipts on older messages of the window, so once it has
+     * landed from the server the listener switches to the full window. The first server snapshot of
+     * a full window also prunes local messages deleted while nothing was listening.
+     */
+    private ListenerRegistration syncLatestMessages(String chatId, int limit) {
+        Query window = messagesCollection(chatId).orderBy(TIMESTAMP_FIELD, Query.Direction.ASCENDING);
+        SwitchingRegistration registration = new SwitchingRegistration();
+        Supplier<ListenerRegistration> listenToFullWindow =
+                () -> listenToWindow(window.limitToLast(limit), full -> pruneWindow(chatId, limit, full));
         
-        return messagesLiveData;
+        localExecutor.execute(() -> {
+            Timestamp lastSeen = LocalConverters.fromMicros(messageDao.getLatestTimestamp(chatId));
+            if (lastSeen == null) {
+                registration.switchTo(listenToFullWindow);
+                return;
+            }
+            registration.switchTo(() -> listenToWindow(
+                    window.startAt(lastSeen).limitToLast(limit),
+                    delta -> registration.switchTo(listenToFullWindow)));
+        });
+        return registration;
     }
     
+    private ListenerRegistration listenToWindow(Query query, Consumer<QuerySnapshot> onServerSnapshot) {
+        AtomicBoolean serverSnapshotSeen = new AtomicBoolean();
+        return query
+                .addSnapshotListener(backgroundExecutor, (value, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Error syncing messages", error);
+                        return;
+                    }
+                    if (value == null) return;
+                    
+                    List<LocalMessage> changed = new ArrayList<>();
+                    for (DocumentChange change : value.getDocumentChanges()) {
+                        if (change.getType() != DocumentChange.Type.REMOVED) {
+                            changed.add(LocalMessage.from(toEntity(change.getDocument())));
+                        } else if (!slidOutOfWindow(change.getDocument(), value)) {
+                            deleteIfGone(change.getDocument().getReference());
+                        }
+                    }
+                    
+                    if (!changed.isEmpty()) {
+                        localExecutor.execute(() -> messageDao.upsertAll(changed));
+                    }
+                    if (onServerSnapshot != null && !value.getMetadata().isFromCache()
+                            && serverSnapshotSeen.compareAndSet(false, true)) {
+                        onServerSnapshot.accept(value);
+                    }
+                });
+    }
+    
+    /**
+     * A full {@code limitToLast} window also reports REMOVED for the oldest message whenever a new
+     * one arrives. That message still exists, so it is kept locally for history.
+     */
+    private static boolean slidOutOfWindow(DocumentSnapshot removed, QuerySnapshot window) {
+        if (window.isEmpty()) return false;
+        Timestamp removedAt = removed.getTimestamp(TIMESTAMP_FIELD);
+        Timestamp oldestAt = window.getDocuments().get(0).getTimestamp(TIMESTAMP_FIELD);
+        return removedAt != null && oldestAt != null && removedAt.compareTo(oldestAt) < 0;
+    }
+    
+    /** Deletes local messages in the window's time range that the server no longer has. */
+    private void pruneWindow(String chatId, int limit, QuerySnapshot window) {
+        List<String> keepIds = new ArrayList<>(window.size());
+        for (DocumentSnapshot document : window.getDocuments()) {
+            keepIds.add(document.getId());
+        }
+        Timestamp oldestAt = window.isEmpty()
+                ? null
+                : window.getDocuments().get(0).getTimestamp(TIMESTAMP_FIELD);
+        long since = window.size() < limit || oldestAt == null
+                ? 0L
+                : LocalConverters.toMicros(oldestAt);
+        localExecutor.execute(() -> messageDao.deleteMissing(chatId, since, keepIds));
+    }
+    
+    /**
+     * Deletes the local row unless the server confirms the document still exists. The read goes to
+     * the server because a cached copy would mask the deletion. If the server can't be reached the
+     * row is kept, and the next full window prunes it.
+     */
+    private void deleteIfGone(DocumentReference reference) {
+        reference.get(Source.SERVER).addOnCompleteListener(localExecutor, task -> {
+            if (task.isSuccessful() ? !task.getResult().exists() : isAccessRevoked(task.getException())) {
+                messageDao.deleteByIds(Collections.singletonList(reference.getId()));
+            }
+        });
+    }
+    
+    private static boolean isAccessRevoked(Exception e) {
+        return e instanceof FirebaseFirestoreException firestoreException
+                && firestoreException.getCode() == FirebaseFirestoreException.Code.PERMISSION_DENIED;
+    }
+    
+    private CollectionReference messagesCollection(String chatId) {
+        return db.collection(CHATS_COLLECTION)
+                .document(chatId)
+                .collection(MESSAGES_SUBCOLLECTION);
+    }
+    
+    /** A registration whose underlying listener can be replaced while it stays registered. */
+    private static final class SwitchingRegistration implements ListenerRegistration {
+        
+        private ListenerRegistration current;
+        private boolean removed;
+        
+        synchronized void switchTo(Supplier<ListenerRegistration> attach) {
+            if (removed) return;
+            if (current != null) current.remove();
+            current = attach.get();
+        }
+        
+        @Override
+        public synchronized void remove() {
+            removed = true;
+            if (current != null) current.remove();
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package com.wornux.chatzam.data.repositories;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import com.google.android.gms.tasks.Task;
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.SendStatus;
+import com.wornux.chatzam.data.local.ChatZamDatabase;
+import com.wornux.chatzam.data.local.dao.MediaUploadDao;
+import com.wornux.chatzam.data.local.dao.OutboxDao;
+import com.wornux.chatzam.data.local.entities.MediaUpload;
+import com.wornux.chatzam.data.local.entities.OutboxMessage;
+import com.wornux.chatzam.utils.TaskUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class OutboxRepository {
+
+  private static final int MAX_SEND_ATTEMPTS = 8;
+
+  private final ChatZamDatabase database;
+  private final OutboxDao outboxDao;
+  private final MediaUploadDao mediaUploadDao;
+  private final Executor localExecutor;
+
+  @Inject
+  public OutboxRepository(ChatZamDatabase database) {
+    this.database = database;
+    this.outboxDao = database.outboxDao();
+    this.mediaUploadDao = database.mediaUploadDao();
+    this.localExecutor = database.getTransactionExecutor();
+  }
+
+  public Task<Void> enqueue(Message message) {
+    return TaskUtils.call(
+        localExecutor,
+        () -> {
+          outboxDao.insert(OutboxMessage.from(message));
+          return null;
+        });
+  }
+
+  public Task<Void> enqueueWithUploads(List<Message> messages, List<MediaUpload> uploads) {
+    return TaskUtils.call(
+        localExecutor,
+        () -> {
+          List<OutboxMessage> outboxMessages = new ArrayList<>(messages.size());
+          for (Message message : messages) {
+            outboxMessages.add(OutboxMessage.from(message));
+          }
+          database.runInTransaction(
+              () -> {
+                mediaUploadDao.insertAll(uploads);
+                outboxDao.insertAll(outboxMessages);
+              });
+          return null;
+        });
+  }
+
+  public LiveData<List<Message>> getQueuedMessages(String chatId) {
+    return Transformations.map(outboxDao.observeByChat(chatId), OutboxMessage::toMessages);
+  }
+
+  public List<Message> getOldestQueued(int limit) {
+    return OutboxMessage.toMessages(outboxDao.getOldest(limit));
+  }
+
+  public void markSent(List<String> messageIds) {
+    outboxDao.deleteByIds(messageIds);
+  }
+
+  public void markAttemptFailed(List<String> messageIds) {
+    outboxDao.incrementAttempts(messageIds);
+    outboxDao.failExhausted(MAX_SEND_ATTEMPTS);
+  }
+
+  public void markFailed(List<String> messageIds) {
+    outboxDao.markFailed(messageIds);
+  }
+
+  public List<MediaUpload> getUploads(String messageId) {
+    return mediaUploadDao.getByMessage(messageId);
+  }
+
+  public void saveUploadSession(String messageId, String rendition, String sessionUri) {
+    mediaUploadDao.updateSession(messageId, rendition, sessionUri);
+  }
+
+  public void markUploaded(String messageId, String rendition, String downloadUrl) {
+    mediaUploadDao.markUploaded(messageId, rendition, downloadUrl);
+  }
+
+  /** True while the message waits for its uploads; false once it has failed, been released or gone. */
+  public boolean isUploading(String messageId) {
+    OutboxMessage outbox = outboxDao.getById(messageId);
+    return outbox != null && SendStatus.UPLOADING.name().equals(outbox.sendStatus);
+  }
+
+  public boolean hasUploads(String messageId) {
+    return mediaUploadDao.countByMessage(messageId) > 0;
+  }
+
+  /**
+   * Swaps the local variants of uploading messages for the uploaded ones and hands them to the
+   * outbox drain in one transaction, so a batch is committed together. Messages that were
+   * discarded or still have renditions to upload are skipped. Returns how many were released.
+   */
+  public int completeUploads(List<String> messageIds) {
+    List<MediaUpload> released = new ArrayList<>();
+    int releasedCount =
+        database.runInTransaction(
+            () -> {
+              int count = 0;
+              for (String messageId : messageIds) {
+                List<MediaUpload> uploads = mediaUploadDao.getByMessage(messageId);
+                if (release(messageId, uploads)) {
+                  released.addAll(uploads);
+                  count++;
+                }
+              }
+              return count;
+            });
+
+    deleteFiles(released);
+    return releasedCount;
+  }
+
+  private boolean release(String messageId, List<MediaUpload> uploads) {
+    OutboxMessage outbox = outboxDao.getById(messageId);
+    if (outbox == null || uploads.isEmpty()) return false;
+
+    for (MediaUpload upload : uploads) {
+      if (!upload.isUploaded()) return false;
+    }
+    List<MediaVariant> variants = MediaUpload.toVariants(uploads);
+
+    outbox.mediaVariants = variants;
+    outbox.mediaUrl = variants.get(variants.size() - 1).getUrl();
+    outbox.sendStatus = SendStatus.PENDING.name();
+    outbox.attemptCount = 0;
+    outboxDao.insert(outbox);
+    mediaUploadDao.deleteByMessage(messageId);
+    return true;
+  }
+
+  /** Resets a failed message and returns the state it goes back to, or null if it is gone. */
+  public Task<SendStatus> retry(String messageId) {
+    return TaskUtils.call(
+        localExecutor,
+        () ->
+            database.runInTransaction(
+                () -> {
+                  SendStatus status =
+                      mediaUploadDao.countByMessage(messageId) > 0
+                          ? SendStatus.UPLOADING
+                          : SendStatus.PENDING;
+                  return outboxDao.resetForRetry(messageId, status.name()) > 0 ? status : null;
+                }));
+  }
+
+  public Task<Void> discard(String messageId) {
+    return TaskUtils.call(
+        localExecutor,
+        () -> {
+          List<MediaUpload> uploads =
+              database.runInTransaction(
+                  () -> {
+                    List<MediaUpload> pending = mediaUploadDao.getByMessage(messageId);
+                    mediaUploadDao.deleteByMessage(messageId);
+                    outboxDao.deleteByIds(Collections.singletonList(messageId));
+                    return pending;
+                  });
+          deleteFiles(uploads);
+          return null;
+        });
+  }
+
+  private static void deleteFiles(List<MediaUpload> uploads) {
+    for (MediaUpload upload : uploads) {
+      upload.getFile().delete();
+    }
+  }
+}
@@ -4,9 +4,12 @@ import android.net.Uri;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
 import com.wornux.chatzam.services.FirebaseManager;
 
+import java.io.File;
 import java.util.Objects;
 import java.util.UUID;
 import javax.inject.Inject;
@@ -35,4 +38,20 @@ public class StorageRepository {
                     return imageRef.getDownloadUrl();
                 });
     }
+    
+    /**
+     * Starts or, when {@code sessionUri} is set, resumes a resumable upload. Callers should persist
+     * {@code TaskSnapshot#getUploadSessionUri()} to pick the upload back up after process death.
+     */
+    public UploadTask uploadFile(File file, String path, String contentType, Uri sessionUri) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(contentType)
+                .build();
+        
+        return storageRef.child(path).putFile(Uri.fromFile(file), metadata, sessionUri);
+    }
+    
+    public Task<Uri> getDownloadUrl(String path) {
+        return storageRef.child(path).getDownloadUrl();
+    }
 }
@@ -1,5 +1,6 @@
 package com.wornux.chatzam.data.repositories;
 
+import android.content.SharedPreferences;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
@@ -8,72 +9,314 @@ import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.wornux.chatzam.data.di.BackgroundExecutor;
 import com.wornux.chatzam.data.entities.User;
 import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.local.ChatZamDatabase;
+import com.wornux.chatzam.data.local.LocalConverters;
+import com.wornux.chatzam.data.local.dao.UserDao;
+import com.wornux.chatzam.data.local.entities.LocalUser;
+import com.wornux.chatzam.data.mappers.UserMapper;
 import com.wornux.chatzam.data.repositories.base.BaseRepository;
 import com.wornux.chatzam.services.FirebaseManager;
+import com.wornux.chatzam.utils.PreferenceConstants;
+import com.wornux.chatzam.utils.PrefixTrie;
+import com.wornux.chatzam.utils.SearchKeyUtils;
+import com.wornux.chatzam.utils.TaskUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 @Singleton
 public class UserRepository extends BaseRepository<User> {
 
+  private static final String TAG = "UserRepository";
+  private static final String DISPLAY_NAME_FIELD = "display_name";
+  private static final String EMAIL_FIELD = "email";
+  private static final String FCM_TOKENS_FIELD = "fcm_tokens";
+  private static final String FCM_TOKEN_LAST_SEEN_FIELD = "fcm_token_last_seen";
+  private static final String SEARCH_KEYS_FIELD = "search_keys";
+  private static final String UPDATED_AT_FIELD = "updated_at";
+  public static final int SEARCH_RESULT_LIMIT = 30;
+  private static final int DIRECTORY_PAGE_SIZE = 500;
+  private static final int DIRECTORY_MAX_USERS = 5000;
+  private static final long DIRECTORY_REFRESH_INTERVAL_MS = 5 * 60 * 1000L;
+  private static final int WHERE_IN_LIMIT = 30;
+  private static final long USER_DTO_CACHE_TTL_MS = 2 * 60 * 1000L;
+
+  private final UserDao userDao;
+  private final SharedPreferences preferences;
+  private PrefixTrie directoryIndex = new PrefixTrie();
+  private final Map<String, User> directory = new HashMap<>();
+  private final Map<String, List<String>> directoryTokens = new HashMap<>();
+  private final Map<String, CachedUserDto> userDtoCache = new ConcurrentHashMap<>();
+  private boolean directoryLoaded;
+  private long lastDirectoryRefresh;
+  private volatile boolean directoryComplete;
+
   @Inject
-  public UserRepository(FirebaseManager firebaseManager) {
-    super(firebaseManager.getFirestore(), User.class);
+  public UserRepository(
+      FirebaseManager firebaseManager,
+      ChatZamDatabase database,
+      SharedPreferences preferences,
+      @BackgroundExecutor Executor backgroundExecutor) {
+    super(firebaseManager.getFirestore(), User.class, UserMapper.INSTANCE, backgroundExecutor);
+    this.userDao = database.userDao();
+    this.preferences = preferences;
   }
 
   public Task<Void> createUser(User user) {
-    return db.collection(collectionName).document(user.getUserId()).set(user);
+    return db.collection(collectionName).document(user.getUserId()).set(toData(user));
   }
 
   public Task<User> getUserById(String userId) {
     return getDocument(userId)
         .continueWith(
+            backgroundExecutor,
             task -> {
               DocumentSnapshot document = task.getResult();
               if (document.exists()) {
-                return document.toObject(User.class);
+                return toEntity(document);
               }
               return null;
             });
   }
 
-  public Task<Void> updateUser(User user) {
-    return db.collection(collectionName).document(user.getUserId()).set(user);
+  public Task<Void> updateProfileFields(User user, Set<String> fields) {
+    Map<String, Object> data = toData(user);
+    Map<String, Object> updates = new HashMap<>();
+    for (String field : fields) {
+      updates.put(field, data.get(field));
+    }
+    if (fields.contains(DISPLAY_NAME_FIELD) || fields.contains(EMAIL_FIELD)) {
+      updates.put(SEARCH_KEYS_FIELD, data.get(SEARCH_KEYS_FIELD));
+    }
+    updates.put(UPDATED_AT_FIELD, data.get(UPDATED_AT_FIELD));
+
+    return db.collection(collectionName)
+        .document(user.getUserId())
+        .set(updates, SetOptions.merge());
+  }
+
+  public Task<Void> addFcmToken(String userId, String token) {
+    return db.collection(collectionName)
+        .document(userId)
+        .update(
+            FCM_TOKENS_FIELD,
+            FieldValue.arrayUnion(token),
+            FieldPath.of(FCM_TOKEN_LAST_SEEN_FIELD, token),
+            FieldValue.serverTimestamp());
   }
 
-  public Task<Void> updateFmcTOkens(String userId, String token) {
-    final String FCM_TOKENS_FIELD = "fcm_tokens";
+  public Task<Void> removeFcmTokens(String userId, List<String> tokens) {
+    if (tokens.isEmpty()) {
+      return Tasks.forResult(null);
+    }
+
+    Object[] tokenDeletes = new Object[tokens.size() * 2];
+    for (int i = 0; i < tokens.size(); i++) {
+      tokenDeletes[i * 2] = FieldPath.of(FCM_TOKEN_LAST_SEEN_FIELD, tokens.get(i));
+      tokenDeletes[i * 2 + 1] = FieldValue.delete();
+    }
 
     return db.collection(collectionName)
         .document(userId)
-        .update(FCM_TOKENS_FIELD, Collections.singletonList(token));
+        .update(
+            FieldPath.of(FCM_TOKENS_FIELD),
+            FieldValue.arrayRemove(tokens.toArray()),
+            tokenDeletes);
   }
 
   public Task<List<User>> searchUsers(String query) {
-    return getCollection()
+    String searchKey = SearchKeyUtils.normalize(query);
+
+    Query searchQuery =
+        searchKey.isEmpty()
+            ? db.collection(collectionName).orderBy(DISPLAY_NAME_FIELD)
+            : db.collection(collectionName)
+                .whereArrayContains(SEARCH_KEYS_FIELD, searchKey)
+                .orderBy(DISPLAY_NAME_FIELD);
+
+    return searchQuery
+        .limit(SEARCH_RESULT_LIMIT)
+        .get()
         .continueWith(
+            backgroundExecutor,
             task -> {
-              QuerySnapshot querySnapshot = task.getResult();
-              List<User> users = querySnapshot.toObjects(User.class);
+              List<User> users = toEntities(task.getResult());
+              cacheUsers(users);
+              return users;
+            });
+  }
 
-              if (query.isEmpty()) {
-                return users;
-              }
+  public Task<List<User>> searchDirectory(String query) {
+    return TaskUtils.call(
+        backgroundExecutor,
+        () -> {
+          loadDirectory();
+          refreshDirectoryIfStale();
 
-              List<User> filteredUsers = new ArrayList<>();
-              for (User user : users) {
-                if (user.getDisplayName().toLowerCase().contains(query.toLowerCase())
-                    || user.getEmail().toLowerCase().contains(query.toLowerCase())) {
-                  filteredUsers.add(user);
-                }
+          String searchKey = SearchKeyUtils.normalize(query);
+          List<User> users = new ArrayList<>();
+          if (searchKey.isEmpty()) {
+            users.addAll(directory.values());
+          } else {
+            for (String userId : directoryIndex.search(searchKey, SEARCH_RESULT_LIMIT)) {
+              users.add(directory.get(userId));
+            }
+          }
+
+          return topResults(users);
+        });
+  }
+
+  /** Sorts search results by display name and keeps the first {@link #SEARCH_RESULT_LIMIT}. */
+  public static List<User> topResults(Collection<User> results) {
+    List<User> users = new ArrayList<>(results);
+    users.sort(
+        Comparator.comparing(
+            User::getDisplayName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+    return users.size() > SEARCH_RESULT_LIMIT
+        ? new ArrayList<>(users.subList(0, SEARCH_RESULT_LIMIT))
+        : users;
+  }
+
+  public void clearCache() {
+    userDtoCache.clear();
+    backgroundExecutor.execute(
+        () -> {
+          directoryIndex = new PrefixTrie();
+          directory.clear();
+          directoryTokens.clear();
+          directoryLoaded = false;
+          directoryComplete = false;
+          lastDirectoryRefresh = 0;
+          preferences.edit().remove(PreferenceConstants.KEY_USER_DIRECTORY_SCANNED).apply();
+        });
+  }
+
+  /**
+   * Whether the last refresh reached the end of the users collection and every user fit under
+   * {@link #DIRECTORY_MAX_USERS}, so a directory search sees the same users a server search would.
+   */
+  public boolean isDirectoryComplete() {
+    return directoryComplete;
+  }
+
+  private void loadDirectory() {
+    if (directoryLoaded) return;
+    directoryLoaded = true;
+    for (LocalUser local : userDao.getAll()) {
+      indexUser(local.toUser());
+    }
+  }
+
+  private void refreshDirectoryIfStale() {
+    long now = System.currentTimeMillis();
+    if (now - lastDirectoryRefresh < DIRECTORY_REFRESH_INTERVAL_MS) return;
+    lastDirectoryRefresh = now;
+    refreshDirectory();
+  }
+
+  private void refreshDirectory() {
+    directoryComplete = false;
+    if (preferences.getBoolean(PreferenceConstants.KEY_USER_DIRECTORY_SCANNED, false)) {
+      Query query = changedUsersQuery();
+      LocalUser latest = userDao.getLatestUpdated();
+      if (latest != null && latest.updatedAt != null) {
+        query = query.startAfter(LocalConverters.fromMicros(latest.updatedAt), latest.userId);
+      }
+      fetchDirectoryPage(query, this::changedUsersQuery, 0);
+    } else {
+      fetchDirectoryPage(allUsersQuery(), this::allUsersQuery, 0);
+    }
+  }
+
+  /** Every user by document id, which also reaches users written before updated_at existed. */
+  private Query allUsersQuery() {
+    return db.collection(collectionName).orderBy(FieldPath.documentId()).limit(DIRECTORY_PAGE_SIZE);
+  }
+
+  /** Users changed since the stored cursor; the document id breaks ties on equal timestamps. */
+  private Query changedUsersQuery() {
+    return db.collection(collectionName)
+        .orderBy(UPDATED_AT_FIELD)
+        .orderBy(FieldPath.documentId())
+        .limit(DIRECTORY_PAGE_SIZE);
+  }
+
+  private void fetchDirectoryPage(Query query, Supplier<Query> nextQuery, int fetched) {
+    query
+        .get()
+        .addOnSuccessListener(
+            backgroundExecutor,
+            snapshot -> {
+              cacheUsers(toEntities(snapshot));
+              int total = fetched + snapshot.size();
+              boolean hasMore = snapshot.size() == DIRECTORY_PAGE_SIZE;
+              if (hasMore && total < DIRECTORY_MAX_USERS) {
+                DocumentSnapshot last = snapshot.getDocuments().get(snapshot.size() - 1);
+                fetchDirectoryPage(nextQuery.get().startAfter(last), nextQuery, total);
+                return;
               }
-              return filteredUsers;
-            });
+
+              preferences
+                  .edit()
+                  .putBoolean(PreferenceConstants.KEY_USER_DIRECTORY_SCANNED, true)
+                  .apply();
+              directoryComplete = !hasMore && userDao.count() < DIRECTORY_MAX_USERS;
+            })
+        .addOnFailureListener(
+            backgroundExecutor, e -> Log.w(TAG, "Error refreshing user directory", e));
+  }
+
+  /**
+   * Stores and indexes the users, then trims the table back to {@link #DIRECTORY_MAX_USERS},
+   * evicting the least recently updated users first.
+   */
+  private void cacheUsers(List<User> users) {
+    if (users.isEmpty()) return;
+    userDao.upsertAll(LocalUser.fromUsers(users));
+    for (User user : users) {
+      indexUser(user);
+    }
+
+    List<String> evicted = userDao.getIdsBeyond(DIRECTORY_MAX_USERS);
+    if (evicted.isEmpty()) return;
+    userDao.deleteBeyond(DIRECTORY_MAX_USERS);
+    for (String userId : evicted) {
+      unindexUser(userId);
+      directory.remove(userId);
+    }
+  }
+
+  private void indexUser(User user) {
+    String userId = user.getUserId();
+    if (userId == null) return;
+
+    unindexUser(userId);
+    List<String> tokens = SearchKeyUtils.searchTokens(user.getDisplayName(), user.getEmail());
+    for (String token : tokens) {
+      directoryIndex.insert(token, userId);
+    }
+    directoryTokens.put(userId, tokens);
+    directory.put(userId, user);
+  }
+
+  private void unindexUser(String userId) {
+    List<String> previousTokens = directoryTokens.remove(userId);
+    if (previousTokens != null) {
+      for (String token : previousTokens) {
+        directoryIndex.remove(token, userId);
+      }
+    }
   }
 
   public Task<List<UserDto>> getUserDTOsByIds(List<String> userIds) {
@@ -81,31 +324,66 @@ public class UserRepository extends BaseRepository<User> {
       return Tasks.forResult(new ArrayList<>());
     }
 
-    List<String> limitedUserIds = userIds.size() > 10 ? userIds.subList(0, 10) : userIds;
+    List<String> requestedIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+    List<String> missingIds = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    for (String userId : requestedIds) {
+      CachedUserDto cached = userDtoCache.get(userId);
+      if (cached == null || now - cached.cachedAt > USER_DTO_CACHE_TTL_MS) {
+        missingIds.add(userId);
+      }
+    }
 
-    return db.collection(collectionName)
-        .whereIn(FieldPath.documentId(), limitedUserIds)
-        .get()
+    List<Task<QuerySnapshot>> chunkTasks = new ArrayList<>();
+    for (int i = 0; i < missingIds.size(); i += WHERE_IN_LIMIT) {
+      List<String> chunk = missingIds.subList(i, Math.min(i + WHERE_IN_LIMIT, missingIds.size()));
+      chunkTasks.add(db.collection(collectionName).whereIn(FieldPath.documentId(), chunk).get());
+    }
+
+    return Tasks.whenAllSuccess(chunkTasks)
         .continueWith(
+            backgroundExecutor,
             task -> {
-              List<UserDto> userDtos = new ArrayList<>();
-              if (task.isSuccessful() && task.getResult() != null) {
-                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
-                  User user = doc.toObject(User.class);
+              long fetchedAt = System.currentTimeMillis();
+              for (Object result : task.getResult()) {
+                for (DocumentSnapshot doc : ((QuerySnapshot) result).getDocuments()) {
+                  User user = toEntity(doc);
                   if (user != null) {
-                    userDtos.add(
-                        UserDto.builder()
-                            .userId(user.getUserId())
-                            .displayName(user.getDisplayName())
-                            .profileImageUrl(user.getProfileImageUrl())
-                            .fcmTokens(user.getFcmTokens())
-                            .lastSeen(user.getLastSeen())
-                            .isOnline(user.isOnline())
-                            .build());
+                    userDtoCache.put(doc.getId(), new CachedUserDto(toUserDto(user), fetchedAt));
                   }
                 }
               }
+
+              List<UserDto> userDtos = new ArrayList<>(requestedIds.size());
+              for (String userId : requestedIds) {
+                CachedUserDto cached = userDtoCache.get(userId);
+                if (cached != null) {
+                  userDtos.add(cached.userDto);
+                }
+              }
               return userDtos;
             });
   }
+
+  private UserDto toUserDto(User user) {
+    return UserDto.builder()
+        .userId(user.getUserId())
+        .displayName(user.getDisplayName())
+        .profileImageUrl(user.getProfileImageUrl())
+        .fcmTokens(user.getFcmTokens())
+        .lastSeen(user.getLastSeen())
+        .isOnline(user.isOnline())
+        .build();
+  }
+
+  private static final class CachedUserDto {
+    private final UserDto userDto;
+    private final long cachedAt;
+
+    private CachedUserDto(UserDto userDto, long cachedAt) {
+      this.userDto = userDto;
+      this.cachedAt = cachedAt;
+    }
+  }
+
 }
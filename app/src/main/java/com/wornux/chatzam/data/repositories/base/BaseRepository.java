@@ -7,19 +7,30 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.EventListener;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.wornux.chatzam.data.mappers.FirestoreMapper;
 import com.wornux.chatzam.utils.FirestoreNamingUtils;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public abstract class BaseRepository<T> {
     
     protected final FirebaseFirestore db;
     protected final String collectionName;
     protected final Class<T> entityClass;
+    protected final FirestoreMapper<T> mapper;
+    protected final Executor backgroundExecutor;
+    protected final SnapshotListenerRegistry listenerRegistry = new SnapshotListenerRegistry();
+    private final MutableLiveData<QuerySnapshot> collectionSnapshots = new MutableLiveData<>();
     
-    protected BaseRepository(FirebaseFirestore db, Class<T> entityClass) {
+    protected BaseRepository(FirebaseFirestore db, Class<T> entityClass, FirestoreMapper<T> mapper,
+                             Executor backgroundExecutor) {
         this.db = db;
         this.entityClass = entityClass;
+        this.mapper = mapper;
+        this.backgroundExecutor = backgroundExecutor;
         this.collectionName = FirestoreNamingUtils.toCollectionName(entityClass.getSimpleName());
     }
     
@@ -40,23 +51,34 @@ public abstract class BaseRepository<T> {
     }
     
     public LiveData<QuerySnapshot> getCollectionRealtime() {
-        MutableLiveData<QuerySnapshot> liveData = new MutableLiveData<>();
-        
-        db.collection(collectionName)
-                .addSnapshotListener((value, error) -> {
-                    if (error == null && value != null) {
-                        liveData.setValue(value);
-                    }
-                });
-        
-        return liveData;
+        return listenerRegistry.observe(
+                collectionName,
+                () -> db.collection(collectionName)
+                        .addSnapshotListener(backgroundExecutor, (value, error) -> {
+                            if (error == null && value != null) {
+                                collectionSnapshots.postValue(value);
+                            }
+                        }),
+                collectionSnapshots);
     }
     
-    public void addSnapshotListener(EventListener<QuerySnapshot> listener) {
-        db.collection(collectionName).addSnapshotListener(listener);
+    public ListenerRegistration addSnapshotListener(EventListener<QuerySnapshot> listener) {
+        return db.collection(collectionName).addSnapshotListener(backgroundExecutor, listener);
     }
     
     public Task<QuerySnapshot> getCollection() {
         return db.collection(collectionName).get();
     }
+    
+    protected T toEntity(DocumentSnapshot document) {
+        return mapper.fromSnapshot(document);
+    }
+    
+    protected List<T> toEntities(QuerySnapshot snapshot) {
+        return mapper.fromSnapshots(snapshot);
+    }
+    
+    protected Map<String, Object> toData(T entity) {
+        return mapper.toMap(entity);
+    }
 }
@@ -0,0 +1,73 @@
+package com.wornux.chatzam.data.repositories.base;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public final class SnapshotListenerRegistry {
+
+  private static final long DETACH_GRACE_PERIOD_MS = 5000;
+
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  public <T> LiveData<T> observe(
+      String key, Supplier<ListenerRegistration> attach, LiveData<T> source) {
+    MediatorLiveData<T> result =
+        new MediatorLiveData<T>() {
+          @Override
+          protected void onActive() {
+            super.onActive();
+            acquire(key, attach);
+          }
+
+          @Override
+          protected void onInactive() {
+            super.onInactive();
+            release(key);
+          }
+        };
+    result.addSource(source, result::setValue);
+    return result;
+  }
+
+  private void acquire(String key, Supplier<ListenerRegistration> attach) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      entry = new Entry(attach.get());
+      entries.put(key, entry);
+    } else if (entry.pendingDetach != null) {
+      mainHandler.removeCallbacks(entry.pendingDetach);
+      entry.pendingDetach = null;
+    }
+    entry.refCount++;
+  }
+
+  private void release(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null || --entry.refCount > 0) return;
+
+    entry.pendingDetach =
+        () -> {
+          entries.remove(key);
+          entry.registration.remove();
+        };
+    mainHandler.postDelayed(entry.pendingDetach, DETACH_GRACE_PERIOD_MS);
+  }
+
+  private static final class Entry {
+    private final ListenerRegistration registration;
+    private int refCount;
+    private Runnable pendingDetach;
+
+    private Entry(ListenerRegistration registration) {
+      this.registration = registration;
+    }
+  }
+}
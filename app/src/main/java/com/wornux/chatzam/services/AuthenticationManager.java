@@ -1,9 +1,13 @@
 package com.wornux.chatzam.services;
 
+import androidx.work.WorkManager;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.wornux.chatzam.data.local.ChatZamDatabase;
+import com.wornux.chatzam.data.repositories.UserRepository;
+import com.wornux.chatzam.utils.TaskUtils;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -11,10 +15,22 @@ import javax.inject.Singleton;
 public class AuthenticationManager {
 
     private final FirebaseAuth firebaseAuth;
+    private final ChatZamDatabase database;
+    private final UserRepository userRepository;
+    private final ImageCompressor imageCompressor;
+    private final WorkManager workManager;
 
     @Inject
-    public AuthenticationManager(FirebaseManager firebaseManager) {
+    public AuthenticationManager(FirebaseManager firebaseManager,
+                                 ChatZamDatabase database,
+                                 UserRepository userRepository,
+                                 ImageCompressor imageCompressor,
+                                 WorkManager workManager) {
         this.firebaseAuth = firebaseManager.getFirebaseAuth();
+        this.database = database;
+        this.userRepository = userRepository;
+        this.imageCompressor = imageCompressor;
+        this.workManager = workManager;
     }
 
     public Task<AuthResult> registerUser(String email, String password) {
@@ -25,8 +41,22 @@ public class AuthenticationManager {
         return firebaseAuth.signInWithEmailAndPassword(email, password);
     }
 
-    public void logoutUser() {
+    /**
+     * Signs out and drops everything stored for the previous user: pending outbox and media upload
+     * work, the Room store (including the outbox and upload rows), compressed upload files and the
+     * in-memory caches, so nothing queued by one account is sent under another.
+     */
+    public Task<Void> logoutUser() {
+        workManager.cancelUniqueWork(MessageOutboxWorker.WORK_NAME);
+        workManager.cancelAllWorkByTag(MediaUploadWorker.TAG_MEDIA_UPLOAD);
         firebaseAuth.signOut();
+        userRepository.clearCache();
+
+        return TaskUtils.call(database.getTransactionExecutor(), () -> {
+            database.clearAllTables();
+            imageCompressor.deleteOutputs();
+            return null;
+        });
     }
 
     public FirebaseUser getCurrentUser() {
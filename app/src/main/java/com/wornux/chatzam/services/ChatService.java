@@ -2,7 +2,6 @@ package com.wornux.chatzam.services;
 
 import androidx.lifecycle.LiveData;
 import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.wornux.chatzam.data.repositories.ChatRepository;
 import com.wornux.chatzam.data.repositories.UserRepository;
@@ -60,20 +59,6 @@ public class ChatService {
                 });
     }
 
-    public Task<Void> updateLastMessage(String chatId, Message message) {
-        if (chatId == null) {
-            return Tasks.forException(new IllegalArgumentException("Message has no Chat ID"));
-        }
-
-        Message finalMessage = message.getMessageType() == MessageType.IMAGE ? makeCustomMessage(message) : message;
-
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("last_message", finalMessage);
-        updates.put("last_message_timestamp", finalMessage.getTimestamp());
-
-        return chatRepository.updateLastMessage(chatId, updates);
-    }
-
     public Message makeCustomMessage(Message message) {
         Message lastMessageSummary = message;
         if (message.getMessageType() == MessageType.IMAGE) {
@@ -175,10 +160,8 @@ public class ChatService {
         return userRepository.getUserDTOsByIds(participantIds)
                 .continueWith(task -> {
                     Map<String, UserDto> participantDetails = new HashMap<>();
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        for (UserDto user : task.getResult()) {
-                            participantDetails.put(user.getUserId(), user);
-                        }
+                    for (UserDto user : task.getResult()) {
+                        participantDetails.put(user.getUserId(), user);
                     }
                     return participantDetails;
                 });
@@ -8,6 +8,7 @@ import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -15,6 +16,7 @@ import javax.inject.Singleton;
 public class FCMTokenService {
 
   private static final String TAG = "FCMTokenService";
+  private static final long UNREGISTER_TIMEOUT_SECONDS = 5;
 
   private final FirebaseAuth auth;
   private final FirebaseMessaging messaging;
@@ -51,6 +53,18 @@ public class FCMTokenService {
         .addOnFailureListener(e -> Log.e(TAG, "Failed to register FCM token", e));
   }
 
+  public Task<Void> unregisterToken() {
+    String userId = getCurrentUserId();
+    if (userId == null) {
+      return Tasks.forResult(null);
+    }
+
+    Task<Void> removal =
+        messaging.getToken().onSuccessTask(token -> userService.removeFcmToken(userId, token));
+    return Tasks.withTimeout(removal, UNREGISTER_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        .addOnFailureListener(e -> Log.w(TAG, "Failed to unregister FCM token", e));
+  }
+
   private String getCurrentUserId() {
     return auth.getCurrentUser() != null ? auth.getCurrentUser().getUid() : null;
   }
@@ -0,0 +1,322 @@
+package com.wornux.chatzam.services;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.exifinterface.media.ExifInterface;
+import com.google.android.gms.tasks.Task;
+import com.wornux.chatzam.data.di.MediaExecutor;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import com.wornux.chatzam.utils.BlurHash;
+import com.wornux.chatzam.utils.MessageIds;
+import com.wornux.chatzam.utils.TaskUtils;
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class ImageCompressor {
+
+    private static final String TAG = "ImageCompressor";
+    private static final String OUTPUT_DIRECTORY = "media_upload";
+    private static final int PLACEHOLDER_SOURCE_DIMENSION = 32;
+
+    private final ContentResolver contentResolver;
+    private final File outputDirectory;
+    private final Executor mediaExecutor;
+
+    @Inject
+    public ImageCompressor(@ApplicationContext Context context,
+                           @MediaExecutor Executor mediaExecutor) {
+        this.contentResolver = context.getContentResolver();
+        this.outputDirectory = new File(context.getNoBackupFilesDir(), OUTPUT_DIRECTORY);
+        this.mediaExecutor = mediaExecutor;
+    }
+
+    public record CompressedImage(MediaRendition rendition, File file, String contentType,
+                                  int width, int height) {
+
+        public long compressedBytes() {
+            return file.length();
+        }
+    }
+
+    public record CompressedMedia(List<CompressedImage> images, int width, int height,
+                                  String placeholder) {
+    }
+
+    /** A bitmap decoded at most at the target size, with the EXIF orientation still to apply. */
+    private record Decoded(Bitmap bitmap, int sourceWidth, int sourceHeight, int orientation) {
+    }
+
+    public void deleteOutputs() {
+        File[] files = outputDirectory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    public Task<CompressedMedia> compress(Uri source) {
+        return TaskUtils.call(mediaExecutor, () -> transcode(source, MediaRendition.values()));
+    }
+
+    private CompressedMedia transcode(Uri source, MediaRendition[] renditions)
+            throws IOException {
+        long startedAt = SystemClock.elapsedRealtime();
+        int maxDimension = 0;
+        for (MediaRendition rendition : renditions) {
+            maxDimension = Math.max(maxDimension, rendition.getMaxDimension());
+        }
+
+        Decoded decodedImage = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P
+                ? decodeWithImageDecoder(source, maxDimension)
+                : decodeWithBitmapFactory(source, maxDimension);
+        Bitmap decoded = decodedImage.bitmap();
+        int orientation = decodedImage.orientation();
+        String basename = MessageIds.next();
+        List<CompressedImage> images = new ArrayList<>(renditions.length);
+        String placeholder;
+        try {
+            for (MediaRendition rendition : renditions) {
+                images.add(encode(source, decoded, orientation, rendition, basename));
+                // Larger renditions would be byte-identical copies; their variants share this file.
+                if (Math.max(decoded.getWidth(), decoded.getHeight()) <= rendition.getMaxDimension()) {
+                    break;
+                }
+            }
+            placeholder = placeholderOf(decoded, orientation);
+        } catch (IOException e) {
+            for (CompressedImage image : images) {
+                image.file().delete();
+            }
+            throw e;
+        } finally {
+            decoded.recycle();
+        }
+
+        logCompression(images, decodedImage, sizeOf(source),
+                SystemClock.elapsedRealtime() - startedAt);
+        CompressedImage largest = images.get(images.size() - 1);
+        return new CompressedMedia(images, largest.width(), largest.height(), placeholder);
+    }
+
+    /**
+     * Decodes straight to the target size. ImageDecoder also applies the EXIF orientation itself,
+     * so nothing is left to rotate afterwards.
+     */
+    private Decoded decodeWithImageDecoder(Uri source, int maxDimension) throws IOException {
+        int[] sourceSize = new int[2];
+        Bitmap bitmap = ImageDecoder.decodeBitmap(
+                ImageDecoder.createSource(contentResolver, source),
+                (decoder, info, imageSource) -> {
+                    int width = info.getSize().getWidth();
+                    int height = info.getSize().getHeight();
+                    sourceSize[0] = width;
+                    sourceSize[1] = height;
+                    float scale = scaleFor(width, height, maxDimension);
+                    if (scale < 1f) {
+                        decoder.setTargetSize(Math.max(1, Math.round(width * scale)),
+                                Math.max(1, Math.round(height * scale)));
+                    }
+                    decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+                });
+        return new Decoded(bitmap, sourceSize[0], sourceSize[1], ExifInterface.ORIENTATION_NORMAL);
+    }
+
+    /**
+     * Subsamples by the largest power of two that stays above the target size, then lets the
+     * decoder scale the rest through the density ratio, so the full-size bitmap never exists.
+     */
+    private Decoded decodeWithBitmapFactory(Uri source, int maxDimension) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream input = open(source)) {
+            BitmapFactory.decodeStream(input, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Unable to decode image bounds for " + source);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxDimension);
+        int sampledLongest = Math.max(bounds.outWidth, bounds.outHeight) / options.inSampleSize;
+        if (sampledLongest > maxDimension) {
+            options.inScaled = true;
+            options.inDensity = sampledLongest;
+            options.inTargetDensity = maxDimension;
+        }
+
+        Bitmap decoded;
+        try (InputStream input = open(source)) {
+            decoded = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Unable to decode image " + source);
+        }
+        decoded.setDensity(Bitmap.DENSITY_NONE);
+        return new Decoded(decoded, bounds.outWidth, bounds.outHeight, readOrientation(source));
+    }
+
+    private static String placeholderOf(Bitmap decoded, int orientation) {
+        Bitmap preview = scaleAndRotate(decoded, PLACEHOLDER_SOURCE_DIMENSION, orientation);
+        try {
+            int width = preview.getWidth();
+            int height = preview.getHeight();
+            int[] pixels = new int[width * height];
+            preview.getPixels(pixels, 0, width, 0, 0, width, height);
+            return width >= height
+                    ? BlurHash.encode(pixels, width, height, 4, 3)
+                    : BlurHash.encode(pixels, width, height, 3, 4);
+        } finally {
+            if (preview != decoded) {
+                preview.recycle();
+            }
+        }
+    }
+
+    private CompressedImage encode(Uri source, Bitmap decoded, int orientation,
+                                   MediaRendition rendition, String basename) throws IOException {
+        Bitmap output = scaleAndRotate(decoded, rendition.getMaxDimension(), orientation);
+        int width = output.getWidth();
+        int height = output.getHeight();
+
+        boolean webp = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+        File file = createOutputFile(
+                basename + "_" + rendition.name().toLowerCase(Locale.ROOT) + (webp ? ".webp" : ".jpg"));
+        try (OutputStream stream = new FileOutputStream(file)) {
+            Bitmap.CompressFormat format = webp
+                    ? Bitmap.CompressFormat.WEBP_LOSSY
+                    : Bitmap.CompressFormat.JPEG;
+            if (!output.compress(format, rendition.getQuality(), stream)) {
+                throw new IOException("Unable to encode image " + source);
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        } finally {
+            if (output != decoded) {
+                output.recycle();
+            }
+        }
+
+        return new CompressedImage(rendition, file, webp ? "image/webp" : "image/jpeg", width, height);
+    }
+
+    private InputStream open(Uri source) throws IOException {
+        InputStream input = contentResolver.openInputStream(source);
+        if (input == null) {
+            throw new IOException("Unable to open " + source);
+        }
+        return input;
+    }
+
+    private static int sampleSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static float scaleFor(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        return longest > maxDimension ? (float) maxDimension / longest : 1f;
+    }
+
+    private int readOrientation(Uri source) {
+        try (InputStream input = open(source)) {
+            return new ExifInterface(input).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read EXIF orientation for " + source, e);
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static Bitmap scaleAndRotate(Bitmap bitmap, int maxDimension, int orientation) {
+        float scale = scaleFor(bitmap.getWidth(), bitmap.getHeight(), maxDimension);
+        Matrix orient = orientationMatrix(orientation);
+        if (scale == 1f && orient == null) return bitmap;
+
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        if (orient != null) {
+            matrix.postConcat(orient);
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    /** The transform that brings a stored image upright, or null when it already is. */
+    private static Matrix orientationMatrix(int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> matrix.setScale(-1, 1);
+            case ExifInterface.ORIENTATION_ROTATE_180 -> matrix.setRotate(180);
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL -> matrix.setScale(1, -1);
+            case ExifInterface.ORIENTATION_TRANSPOSE -> {
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+            }
+            case ExifInterface.ORIENTATION_ROTATE_90 -> matrix.setRotate(90);
+            case ExifInterface.ORIENTATION_TRANSVERSE -> {
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+            }
+            case ExifInterface.ORIENTATION_ROTATE_270 -> matrix.setRotate(-90);
+            default -> {
+                return null;
+            }
+        }
+        return matrix;
+    }
+
+    private File createOutputFile(String name) throws IOException {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + outputDirectory);
+        }
+        return new File(outputDirectory, name);
+    }
+
+    private long sizeOf(Uri source) {
+        try (AssetFileDescriptor descriptor = contentResolver.openAssetFileDescriptor(source, "r")) {
+            return descriptor != null ? descriptor.getLength() : AssetFileDescriptor.UNKNOWN_LENGTH;
+        } catch (IOException e) {
+            return AssetFileDescriptor.UNKNOWN_LENGTH;
+        }
+    }
+
+    private static void logCompression(List<CompressedImage> images, Decoded decoded,
+                                       long originalBytes, long durationMs) {
+        CompressedImage largest = images.get(images.size() - 1);
+        CompressedImage smallest = images.get(0);
+        long savedBytes = originalBytes > 0 ? originalBytes - largest.compressedBytes() : 0;
+        Log.i(TAG, String.format(
+                "canonical-log-line compress_image source_size=%dx%d output_size=%dx%d"
+                        + " orientation=%d rendition_count=%d original_bytes=%d"
+                        + " compressed_bytes=%d thumb_bytes=%d saved_bytes=%d content_type=%s"
+                        + " duration_ms=%d",
+                decoded.sourceWidth(), decoded.sourceHeight(), largest.width(), largest.height(),
+                decoded.orientation(), images.size(), originalBytes, largest.compressedBytes(),
+                smallest.compressedBytes(), savedBytes, largest.contentType(), durationMs));
+    }
+}
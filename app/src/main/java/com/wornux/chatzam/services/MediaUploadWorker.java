@@ -0,0 +1,433 @@
+package com.wornux.chatzam.services;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.hilt.work.HiltWorker;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.UploadTask;
+import com.wornux.chatzam.data.di.MediaExecutor;
+import com.wornux.chatzam.data.local.entities.MediaUpload;
+import com.wornux.chatzam.data.repositories.OutboxRepository;
+import com.wornux.chatzam.data.repositories.StorageRepository;
+import dagger.assisted.Assisted;
+import dagger.assisted.AssistedInject;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads the renditions of a batch of queued image messages, at most {@code maxParallel} at a
+ * time, then releases the whole batch to the outbox together so it is committed in one write.
+ * Each rendition's storage session URI is persisted as soon as it is known, so a run that is
+ * stopped or killed resumes from the last committed offset on the next attempt.
+ */
+@HiltWorker
+public class MediaUploadWorker extends Worker {
+
+  public static final String TAG_MEDIA_UPLOAD = "media_upload";
+  public static final String KEY_MESSAGE_IDS = "message_ids";
+  public static final String KEY_MAX_PARALLEL = "max_parallel";
+  public static final String KEY_PROGRESS = "progress";
+  public static final int MAX_PARALLEL_UPLOADS = 4;
+
+  private static final String TAG = "MediaUploadWorker";
+  private static final String WORK_NAME_PREFIX = "media_upload_";
+  private static final int MAX_ATTEMPTS = 8;
+  private static final long INITIAL_BACKOFF_SECONDS = 10;
+
+  private final OutboxRepository outboxRepository;
+  private final StorageRepository storageRepository;
+  private final WorkManager workManager;
+  private final Executor mediaExecutor;
+  private final Set<UploadTask> activeUploads = ConcurrentHashMap.newKeySet();
+
+  @AssistedInject
+  public MediaUploadWorker(
+      @Assisted @NonNull Context context,
+      @Assisted @NonNull WorkerParameters params,
+      OutboxRepository outboxRepository,
+      StorageRepository storageRepository,
+      WorkManager workManager,
+      @MediaExecutor Executor mediaExecutor) {
+    super(context, params);
+    this.outboxRepository = outboxRepository;
+    this.storageRepository = storageRepository;
+    this.workManager = workManager;
+    this.mediaExecutor = mediaExecutor;
+  }
+
+  public static void schedule(WorkManager workManager, List<String> messageIds, int maxParallel) {
+    Data input =
+        new Data.Builder()
+            .putStringArray(KEY_MESSAGE_IDS, messageIds.toArray(new String[0]))
+            .putInt(KEY_MAX_PARALLEL, maxParallel)
+            .build();
+    OneTimeWorkRequest request =
+        new OneTimeWorkRequest.Builder(MediaUploadWorker.class)
+            .setInputData(input)
+            .setConstraints(
+                new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+            .setBackoffCriteria(
+                BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+            .addTag(TAG_MEDIA_UPLOAD)
+            .build();
+
+    workManager.enqueueUniqueWork(
+        WORK_NAME_PREFIX + messageIds.get(0), ExistingWorkPolicy.KEEP, request);
+  }
+
+  /** Maps messages with a running upload to their progress in percent. */
+  public static Map<String, Integer> progressByMessage(List<WorkInfo> workInfos) {
+    if (workInfos == null || workInfos.isEmpty()) return Collections.emptyMap();
+
+    Map<String, Integer> progress = new HashMap<>();
+    for (WorkInfo workInfo : workInfos) {
+      if (workInfo.getState() != WorkInfo.State.RUNNING) continue;
+
+      String[] messageIds = workInfo.getProgress().getStringArray(KEY_MESSAGE_IDS);
+      int[] percents = workInfo.getProgress().getIntArray(KEY_PROGRESS);
+      if (messageIds == null || percents == null) continue;
+      for (int i = 0; i < Math.min(messageIds.length, percents.length); i++) {
+        progress.put(messageIds[i], percents[i]);
+      }
+    }
+    return progress;
+  }
+
+  @NonNull
+  @Override
+  public Result doWork() {
+    long startedAt = SystemClock.elapsedRealtime();
+    String[] messageIds = getInputData().getStringArray(KEY_MESSAGE_IDS);
+    if (messageIds == null || messageIds.length == 0) return Result.failure();
+    int maxParallel = Math.max(1, getInputData().getInt(KEY_MAX_PARALLEL, MAX_PARALLEL_UPLOADS));
+
+    BatchProgress progress = new BatchProgress();
+    List<String> uploading = new ArrayList<>();
+    List<MediaUpload> pending = new ArrayList<>();
+    for (String messageId : messageIds) {
+      // Messages rejected by an earlier attempt keep their rows parked until the user retries them.
+      if (!outboxRepository.isUploading(messageId)) continue;
+      uploading.add(messageId);
+      for (MediaUpload upload : outboxRepository.getUploads(messageId)) {
+        progress.add(upload);
+        if (!upload.isUploaded()) pending.add(upload);
+      }
+    }
+
+    UploadStats stats = new UploadStats(messageIds.length, pending.size(), maxParallel, startedAt);
+    publishProgress(progress);
+
+    Map<MediaUpload, Task<Void>> started = new LinkedHashMap<>();
+    Semaphore permits = new Semaphore(maxParallel);
+    try {
+      for (MediaUpload upload : pending) {
+        permits.acquire();
+        if (isStopped()) {
+          permits.release();
+          break;
+        }
+        if (!outboxRepository.hasUploads(upload.messageId)) {
+          // Discarded while waiting for a permit.
+          permits.release();
+          continue;
+        }
+
+        if (upload.sessionUri != null) stats.resumedCount++;
+        Task<Void> task = startUpload(upload, progress);
+        task.addOnCompleteListener(mediaExecutor, result -> permits.release());
+        started.put(upload, task);
+      }
+      Tasks.await(Tasks.whenAllComplete(started.values()));
+    } catch (ExecutionException e) {
+      logUpload("retry", stats, e);
+      return Result.retry();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logUpload("interrupted", stats, e);
+      return Result.retry();
+    }
+    if (isStopped()) {
+      logUpload("stopped", stats, null);
+      return Result.retry();
+    }
+
+    Set<String> rejected = new LinkedHashSet<>();
+    Set<String> retryable = new LinkedHashSet<>();
+    Exception lastError = null;
+    for (Map.Entry<MediaUpload, Task<Void>> entry : started.entrySet()) {
+      Exception error = entry.getValue().getException();
+      if (error == null) {
+        stats.uploadedCount++;
+        continue;
+      }
+
+      MediaUpload upload = entry.getKey();
+      // A discarded message loses its uploads and files; that is not a failure of the batch.
+      if (!outboxRepository.hasUploads(upload.messageId)) continue;
+      if (error instanceof FileNotFoundException) {
+        rejected.add(upload.messageId);
+        lastError = error;
+        continue;
+      }
+      if (error instanceof StorageException storageException) {
+        if (storageException.getErrorCode() == StorageException.ERROR_CANCELED) continue;
+        if (isPermanentFailure(storageException)) {
+          rejected.add(upload.messageId);
+          lastError = error;
+          continue;
+        }
+        if (upload.sessionUri != null && isSessionExpired(storageException)) {
+          outboxRepository.saveUploadSession(upload.messageId, upload.rendition, null);
+        }
+      }
+      retryable.add(upload.messageId);
+      lastError = error;
+    }
+
+    if (!retryable.isEmpty() && getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+      markFailed(rejected);
+      logUpload("retry", stats, lastError);
+      return Result.retry();
+    }
+
+    rejected.addAll(retryable);
+    markFailed(rejected);
+    stats.rejectedCount = rejected.size();
+
+    List<String> completed = new ArrayList<>();
+    for (String messageId : uploading) {
+      if (!rejected.contains(messageId)) completed.add(messageId);
+    }
+    if (outboxRepository.completeUploads(completed) > 0) {
+      MessageOutboxWorker.schedule(workManager);
+    }
+
+    logUpload(rejected.isEmpty() ? "success" : "partial", stats, lastError);
+    return rejected.isEmpty() ? Result.success() : Result.failure();
+  }
+
+  @Override
+  public void onStopped() {
+    // Pause rather than cancel: cancelling also ends the session on the server, and a stop caused
+    // by lost connectivity should resume it on the next run.
+    for (UploadTask upload : activeUploads) {
+      upload.pause();
+    }
+  }
+
+  /**
+   * Starts one rendition upload. The returned task settles when the rendition is uploaded, fails,
+   * is cancelled because its message was discarded, or is paused because the worker stopped.
+   * Listeners run on the media executor: doWork blocks a thread of the worker's own background
+   * executor until the task settles, so settling it from there could deadlock.
+   */
+  private Task<Void> startUpload(MediaUpload upload, BatchProgress progress) {
+    Executor executor = mediaExecutor;
+    TaskCompletionSource<Void> settled = new TaskCompletionSource<>();
+    if (!upload.getFile().exists()) {
+      settled.setException(new FileNotFoundException(upload.filePath));
+      return settled.getTask();
+    }
+
+    Uri sessionUri = upload.sessionUri != null ? Uri.parse(upload.sessionUri) : null;
+    UploadTask task =
+        storageRepository.uploadFile(
+            upload.getFile(), upload.storagePath, upload.contentType, sessionUri);
+    activeUploads.add(task);
+
+    String[] savedSession = {upload.sessionUri};
+    task.addOnProgressListener(
+        executor,
+        snapshot -> {
+          Uri session = snapshot.getUploadSessionUri();
+          if (session != null && !session.toString().equals(savedSession[0])) {
+            savedSession[0] = session.toString();
+            outboxRepository.saveUploadSession(upload.messageId, upload.rendition, savedSession[0]);
+          }
+          if (progress.update(upload, snapshot.getBytesTransferred())) {
+            if (!outboxRepository.hasUploads(upload.messageId)) {
+              task.cancel();
+              return;
+            }
+            publishProgress(progress);
+          }
+        });
+    task.addOnPausedListener(
+        executor,
+        snapshot -> {
+          activeUploads.remove(task);
+          settled.trySetException(new CancellationException("Upload paused"));
+        });
+    task.addOnCompleteListener(
+        executor,
+        result -> {
+          activeUploads.remove(task);
+          if (!result.isSuccessful()) {
+            settled.trySetException(result.getException());
+            return;
+          }
+          storageRepository
+              .getDownloadUrl(upload.storagePath)
+              .addOnCompleteListener(
+                  executor,
+                  downloadUrl -> {
+                    if (!downloadUrl.isSuccessful()) {
+                      settled.trySetException(downloadUrl.getException());
+                      return;
+                    }
+                    outboxRepository.markUploaded(
+                        upload.messageId, upload.rendition, downloadUrl.getResult().toString());
+                    progress.update(upload, upload.getFile().length());
+                    publishProgress(progress);
+                    settled.trySetResult(null);
+                  });
+        });
+
+    if (isStopped()) task.pause();
+    return settled.getTask();
+  }
+
+  /** Marks the rejected messages failed, dropping any that were discarded in the meantime. */
+  private void markFailed(Set<String> rejected) {
+    rejected.removeIf(messageId -> !outboxRepository.hasUploads(messageId));
+    if (!rejected.isEmpty()) outboxRepository.markFailed(new ArrayList<>(rejected));
+  }
+
+  private void publishProgress(BatchProgress progress) {
+    Data data = progress.toData();
+    if (data != null) setProgressAsync(data);
+  }
+
+  private static boolean isPermanentFailure(StorageException e) {
+    int code = e.getErrorCode();
+    return code == StorageException.ERROR_NOT_AUTHORIZED
+        || code == StorageException.ERROR_NOT_AUTHENTICATED
+        || code == StorageException.ERROR_QUOTA_EXCEEDED
+        || code == StorageException.ERROR_BUCKET_NOT_FOUND
+        || code == StorageException.ERROR_PROJECT_NOT_FOUND;
+  }
+
+  private static boolean isSessionExpired(StorageException e) {
+    return e.getHttpResultCode() == 404 || e.getHttpResultCode() == 410;
+  }
+
+  private void logUpload(String status, UploadStats stats, Exception error) {
+    String errorMsg = error != null ? " error=\"" + error.getMessage() + "\"" : "";
+    Log.i(
+        TAG,
+        String.format(
+            "canonical-log-line upload_media status=%s message_count=%d rendition_count=%d"
+                + " uploaded_count=%d resumed_count=%d rejected_count=%d max_parallel=%d"
+                + " attempt=%d duration_ms=%d%s",
+            status,
+            stats.messageCount,
+            stats.renditionCount,
+            stats.uploadedCount,
+            stats.resumedCount,
+            stats.rejectedCount,
+            stats.maxParallel,
+            getRunAttemptCount(),
+            SystemClock.elapsedRealtime() - stats.startedAt,
+            errorMsg));
+  }
+
+  /** Per-message byte counts, turned into percentages that are only republished on change. */
+  private static final class BatchProgress {
+    private final Map<String, Long> totalBytes = new LinkedHashMap<>();
+    private final Map<String, Long> transferredBytes = new HashMap<>();
+    private final Map<String, Integer> percents = new LinkedHashMap<>();
+
+    synchronized void add(MediaUpload upload) {
+      long size = upload.getFile().length();
+      totalBytes.merge(upload.messageId, size, Long::sum);
+      transferredBytes.put(key(upload), upload.isUploaded() ? size : 0L);
+      percents.put(upload.messageId, percentOf(upload.messageId));
+    }
+
+    /** Returns true when the message's percentage changed. */
+    synchronized boolean update(MediaUpload upload, long transferred) {
+      transferredBytes.put(key(upload), transferred);
+      int percent = percentOf(upload.messageId);
+      Integer previous = percents.put(upload.messageId, percent);
+      return previous == null || previous != percent;
+    }
+
+    synchronized Data toData() {
+      if (percents.isEmpty()) return null;
+
+      String[] messageIds = new String[percents.size()];
+      int[] values = new int[percents.size()];
+      int i = 0;
+      for (Map.Entry<String, Integer> entry : percents.entrySet()) {
+        messageIds[i] = entry.getKey();
+        values[i++] = entry.getValue();
+      }
+      return new Data.Builder()
+          .putStringArray(KEY_MESSAGE_IDS, messageIds)
+          .putIntArray(KEY_PROGRESS, values)
+          .build();
+    }
+
+    private int percentOf(String messageId) {
+      long total = totalBytes.getOrDefault(messageId, 0L);
+      if (total <= 0) return 0;
+
+      long transferred = 0;
+      for (Map.Entry<String, Long> entry : transferredBytes.entrySet()) {
+        if (entry.getKey().startsWith(messageId + "/")) transferred += entry.getValue();
+      }
+      return (int) Math.min(100, transferred * 100 / total);
+    }
+
+    private static String key(MediaUpload upload) {
+      return upload.messageId + "/" + upload.rendition;
+    }
+  }
+
+  private static final class UploadStats {
+    final int messageCount;
+    final int renditionCount;
+    final int maxParallel;
+    final long startedAt;
+    int uploadedCount;
+    int resumedCount;
+    int rejectedCount;
+
+    UploadStats(int messageCount, int renditionCount, int maxParallel, long startedAt) {
+      this.messageCount = messageCount;
+      this.renditionCount = renditionCount;
+      this.maxParallel = maxParallel;
+      this.startedAt = startedAt;
+    }
+  }
+}
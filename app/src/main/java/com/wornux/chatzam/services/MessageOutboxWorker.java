@@ -0,0 +1,218 @@
+package com.wornux.chatzam.services;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.hilt.work.HiltWorker;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.repositories.MessageRepository;
+import com.wornux.chatzam.data.repositories.OutboxRepository;
+import dagger.assisted.Assisted;
+import dagger.assisted.AssistedInject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@HiltWorker
+public class MessageOutboxWorker extends Worker {
+
+  public static final String WORK_NAME = "message_outbox";
+
+  private static final String TAG = "MessageOutboxWorker";
+  private static final int MAX_MESSAGES_PER_BATCH = 200;
+  private static final long COMMIT_TIMEOUT_SECONDS = 30;
+  private static final long INITIAL_BACKOFF_SECONDS = 10;
+
+  private final OutboxRepository outboxRepository;
+  private final MessageRepository messageRepository;
+  private final ChatService chatService;
+
+  @AssistedInject
+  public MessageOutboxWorker(
+      @Assisted @NonNull Context context,
+      @Assisted @NonNull WorkerParameters params,
+      OutboxRepository outboxRepository,
+      MessageRepository messageRepository,
+      ChatService chatService) {
+    super(context, params);
+    this.outboxRepository = outboxRepository;
+    this.messageRepository = messageRepository;
+    this.chatService = chatService;
+  }
+
+  public static void schedule(WorkManager workManager) {
+    OneTimeWorkRequest request =
+        new OneTimeWorkRequest.Builder(MessageOutboxWorker.class)
+            .setConstraints(
+                new Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+            .setBackoffCriteria(
+                BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    workManager.enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+  }
+
+  @NonNull
+  @Override
+  public Result doWork() {
+    int batchCount = 0;
+    int messageCount = 0;
+    int rejectedCount = 0;
+
+    List<Message> queued;
+    while (!(queued = outboxRepository.getOldestQueued(MAX_MESSAGES_PER_BATCH)).isEmpty()) {
+      try {
+        commit(queued);
+      } catch (ExecutionException e) {
+        if (!isPermanentFailure(e)) {
+          if (!reconcile(queued)) outboxRepository.markAttemptFailed(messageIds(queued));
+          logDrain("retry", batchCount, messageCount, rejectedCount, e);
+          return Result.retry();
+        }
+
+        try {
+          int rejected = commitPerChat(queued);
+          rejectedCount += rejected;
+          messageCount += queued.size() - rejected;
+          continue;
+        } catch (ExecutionException | TimeoutException perChatError) {
+          logDrain("retry", batchCount, messageCount, rejectedCount, perChatError);
+          return Result.retry();
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return Result.retry();
+        }
+      } catch (TimeoutException e) {
+        // The SDK keeps the write pending and may still commit it, so a timeout is not counted as
+        // an attempt. The retry rewrites the same document ids, which is idempotent.
+        logDrain("retry", batchCount, messageCount, rejectedCount, e);
+        return Result.retry();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logDrain("interrupted", batchCount, messageCount, rejectedCount, e);
+        return Result.retry();
+      }
+
+      outboxRepository.markSent(messageIds(queued));
+      batchCount++;
+      messageCount += queued.size();
+    }
+
+    logDrain("success", batchCount, messageCount, rejectedCount, null);
+    return Result.success();
+  }
+
+  private void commit(List<Message> messages)
+      throws ExecutionException, InterruptedException, TimeoutException {
+    Tasks.await(
+        messageRepository.commitMessages(messages, lastMessagePerChat(messages)),
+        COMMIT_TIMEOUT_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  private int commitPerChat(List<Message> messages)
+      throws ExecutionException, InterruptedException, TimeoutException {
+    Map<String, List<Message>> byChat = new LinkedHashMap<>();
+    for (Message message : messages) {
+      byChat.computeIfAbsent(message.getChatId(), chatId -> new ArrayList<>()).add(message);
+    }
+
+    int rejected = 0;
+    for (List<Message> chatMessages : byChat.values()) {
+      try {
+        commit(chatMessages);
+      } catch (ExecutionException e) {
+        if (!isPermanentFailure(e)) {
+          if (!reconcile(chatMessages)) outboxRepository.markAttemptFailed(messageIds(chatMessages));
+          throw e;
+        }
+        if (reconcile(chatMessages)) continue;
+        rejected += chatMessages.size();
+        outboxRepository.markFailed(messageIds(chatMessages));
+        Log.w(TAG, "Messages rejected for chat " + chatMessages.get(0).getChatId(), e);
+        continue;
+      }
+      outboxRepository.markSent(messageIds(chatMessages));
+    }
+    return rejected;
+  }
+
+  /**
+   * Marks sent the messages an earlier, timed-out commit already wrote to the server, so they are
+   * not failed while actually delivered. Returns true only when every message was found there.
+   */
+  private boolean reconcile(List<Message> messages) throws InterruptedException {
+    try {
+      List<String> committed =
+          Tasks.await(
+              messageRepository.getCommittedIds(messages),
+              COMMIT_TIMEOUT_SECONDS,
+              TimeUnit.SECONDS);
+      if (!committed.isEmpty()) outboxRepository.markSent(committed);
+      return committed.size() == messages.size();
+    } catch (ExecutionException | TimeoutException e) {
+      Log.w(TAG, "Could not reconcile messages with the server", e);
+      return false;
+    }
+  }
+
+  private boolean isPermanentFailure(ExecutionException e) {
+    if (!(e.getCause() instanceof FirebaseFirestoreException firestoreException)) return false;
+
+    FirebaseFirestoreException.Code code = firestoreException.getCode();
+    return code == FirebaseFirestoreException.Code.PERMISSION_DENIED
+        || code == FirebaseFirestoreException.Code.NOT_FOUND
+        || code == FirebaseFirestoreException.Code.INVALID_ARGUMENT;
+  }
+
+  private List<String> messageIds(List<Message> messages) {
+    List<String> messageIds = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      messageIds.add(message.getMessageId());
+    }
+    return messageIds;
+  }
+
+  private Map<String, Message> lastMessagePerChat(List<Message> messages) {
+    Map<String, Message> latest = new HashMap<>();
+    for (Message message : messages) {
+      Message current = latest.get(message.getChatId());
+      if (current == null || current.getTimestamp().compareTo(message.getTimestamp()) <= 0) {
+        latest.put(message.getChatId(), message);
+      }
+    }
+
+    Map<String, Message> summaries = new HashMap<>();
+    for (Map.Entry<String, Message> entry : latest.entrySet()) {
+      summaries.put(entry.getKey(), chatService.makeCustomMessage(entry.getValue()));
+    }
+    return summaries;
+  }
+
+  private void logDrain(
+      String status, int batchCount, int messageCount, int rejectedCount, Exception error) {
+    String errorMsg = error != null ? " error=\"" + error.getMessage() + "\"" : "";
+    Log.i(
+        TAG,
+        String.format(
+            "canonical-log-line drain_message_outbox status=%s batch_count=%d message_count=%d"
+                + " rejected_count=%d attempt=%d%s",
+            status, batchCount, messageCount, rejectedCount, getRunAttemptCount(), errorMsg));
+  }
+}
@@ -2,58 +2,166 @@ package com.wornux.chatzam.services;
 
 import android.net.Uri;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.work.WorkManager;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
-import com.google.firebase.firestore.DocumentReference;
 import com.wornux.chatzam.data.repositories.MessageRepository;
-import com.wornux.chatzam.data.repositories.StorageRepository;
+import com.wornux.chatzam.data.repositories.OutboxRepository;
+import com.wornux.chatzam.data.dto.MediaVariant;
 import com.wornux.chatzam.data.entities.Message;
-import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import com.wornux.chatzam.data.enums.SendStatus;
+import com.wornux.chatzam.data.local.entities.MediaUpload;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Singleton
 public class MessageService {
 
     private final MessageRepository messageRepository;
-    private final StorageRepository storageRepository;
-    private final ChatService chatService;
+    private final ImageCompressor imageCompressor;
+    private final OutboxRepository outboxRepository;
+    private final WorkManager workManager;
 
     @Inject
     public MessageService(MessageRepository messageRepository,
-                          StorageRepository storageRepository, ChatService chatService) {
+                          ImageCompressor imageCompressor,
+                          OutboxRepository outboxRepository,
+                          WorkManager workManager) {
         this.messageRepository = messageRepository;
-        this.storageRepository = storageRepository;
-        this.chatService = chatService;
+        this.imageCompressor = imageCompressor;
+        this.outboxRepository = outboxRepository;
+        this.workManager = workManager;
     }
 
-    public Task<String> sendMessage(Message message) {
-        if ((message.getContent() == null || message.getContent().trim().isEmpty()) && (message.getMediaUrl() == null || message.getMediaUrl().trim().isEmpty()))
-            throw new IllegalArgumentException("Message must have content or media");
+    public Task<Void> queueMessage(Message message) {
+        validateMessage(message);
+        if (message.getMessageId() == null)
+            throw new IllegalArgumentException("Queued message must have an ID");
 
-        return messageRepository.createMessage(message.getChatId(), message).addOnSuccessListener(v -> chatService.updateLastMessage(message.getChatId(), message));
+        return outboxRepository.enqueue(message)
+                .addOnSuccessListener(v -> MessageOutboxWorker.schedule(workManager));
     }
 
-    public LiveData<List<Message>> getMessages(String chatId) {
-        return messageRepository.getMessagesByChatId(chatId);
-    }
+    /**
+     * Compresses the images into app storage right away, so the picker grant is not needed later,
+     * and queues the messages with their local renditions. {@link MediaUploadWorker} uploads them
+     * at most {@link MediaUploadWorker#MAX_PARALLEL_UPLOADS} renditions at a time and then releases
+     * the whole batch to the outbox, which commits it in one write with a single last message
+     * update. Resolves to the number of images that could not be prepared.
+     */
+    public Task<Integer> queueImageMessages(List<Message> messages, List<Uri> imageUris) {
+        if (messages.size() != imageUris.size())
+            throw new IllegalArgumentException("Each image needs exactly one message");
+        for (Message message : messages) {
+            if (message.getMessageId() == null)
+                throw new IllegalArgumentException("Queued message must have an ID");
+        }
 
-    public Task<String> uploadMedia(Uri uri, MessageType messageType) {
-        if (uri == null) {
-            throw new IllegalArgumentException("Media URI cannot be null");
+        List<Task<ImageCompressor.CompressedMedia>> compressions = new ArrayList<>(imageUris.size());
+        for (Uri imageUri : imageUris) {
+            compressions.add(imageCompressor.compress(Objects.requireNonNull(imageUri)));
         }
 
-        String fileName = "media_" + System.currentTimeMillis();
+        return Tasks.whenAllComplete(compressions).onSuccessTask(completed -> {
+            List<Message> queued = new ArrayList<>(messages.size());
+            List<MediaUpload> uploads = new ArrayList<>(messages.size() * MediaRendition.values().length);
+            Exception lastError = null;
+            for (int i = 0; i < messages.size(); i++) {
+                Task<ImageCompressor.CompressedMedia> compression = compressions.get(i);
+                if (!compression.isSuccessful()) {
+                    lastError = compression.getException();
+                    continue;
+                }
+                Message message = messages.get(i);
+                uploads.addAll(prepareUpload(message, compression.getResult()));
+                queued.add(message);
+            }
 
-        if (Objects.requireNonNull(messageType) != MessageType.IMAGE)
-            Tasks.forException(new IllegalArgumentException("Unsupported media type: " + messageType));
+            if (queued.isEmpty())
+                return Tasks.forException(Objects.requireNonNull(lastError));
 
-        return storageRepository.uploadImage(uri, fileName).continueWith(task -> {
-            Uri downloadUrl = task.getResult();
-            return downloadUrl.toString();
+            int failedCount = messages.size() - queued.size();
+            List<String> messageIds = new ArrayList<>(queued.size());
+            for (Message message : queued) {
+                messageIds.add(message.getMessageId());
+            }
+            return outboxRepository.enqueueWithUploads(queued, uploads)
+                    .onSuccessTask(v -> {
+                        MediaUploadWorker.schedule(
+                                workManager, messageIds, MediaUploadWorker.MAX_PARALLEL_UPLOADS);
+                        return Tasks.forResult(failedCount);
+                    });
         });
     }
+
+    private List<MediaUpload> prepareUpload(Message message, ImageCompressor.CompressedMedia media) {
+        List<MediaUpload> uploads = new ArrayList<>(media.images().size());
+        for (ImageCompressor.CompressedImage image : media.images()) {
+            uploads.add(MediaUpload.of(message.getMessageId(), image.rendition(),
+                    image.file(), image.contentType(), image.width(), image.height()));
+        }
+        List<MediaVariant> localVariants = MediaUpload.toVariants(uploads);
+
+        message.setMediaVariants(localVariants);
+        message.setMediaUrl(localVariants.get(localVariants.size() - 1).getUrl());
+        message.setMediaWidth(media.width());
+        message.setMediaHeight(media.height());
+        message.setMediaPlaceholder(media.placeholder());
+        message.setSendStatus(SendStatus.UPLOADING);
+        return uploads;
+    }
+
+    public Task<Void> retryQueuedMessage(String messageId) {
+        return outboxRepository.retry(messageId)
+                .onSuccessTask(status -> {
+                    if (status == SendStatus.UPLOADING) {
+                        MediaUploadWorker.schedule(
+                                workManager, List.of(messageId), MediaUploadWorker.MAX_PARALLEL_UPLOADS);
+                    } else if (status == SendStatus.PENDING) {
+                        MessageOutboxWorker.schedule(workManager);
+                    }
+                    return Tasks.forResult(null);
+                });
+    }
+    
+    /**
+     * Discards a queued message. A running media upload notices its rows are gone and cancels the
+     * message's in-flight renditions without affecting the rest of its batch.
+     */
+    public Task<Void> discardQueuedMessage(String messageId) {
+        return outboxRepository.discard(messageId);
+    }
+    
+    public LiveData<Map<String, Integer>> getUploadProgress() {
+        return Transformations.map(
+                workManager.getWorkInfosByTagLiveData(MediaUploadWorker.TAG_MEDIA_UPLOAD),
+                MediaUploadWorker::progressByMessage);
+    }
+    
+    public LiveData<List<Message>> getQueuedMessages(String chatId) {
+        return outboxRepository.getQueuedMessages(chatId);
+    }
+
+    public LiveData<List<Message>> getLatestMessages(String chatId, int limit) {
+        return messageRepository.getLatestMessages(chatId, limit);
+    }
+
+    public Task<List<Message>> getMessagesBefore(String chatId, Message before, int limit) {
+        if (before == null || before.getTimestamp() == null) {
+            return Tasks.forResult(new ArrayList<>());
+        }
+        return messageRepository.getMessagesBefore(chatId, before, limit);
+    }
+
+    private void validateMessage(Message message) {
+        if ((message.getContent() == null || message.getContent().trim().isEmpty()) && (message.getMediaUrl() == null || message.getMediaUrl().trim().isEmpty()))
+            throw new IllegalArgumentException("Message must have content or media");
+    }
 }
@@ -5,17 +5,24 @@ import android.util.Log;
 import androidx.lifecycle.LiveData;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.wornux.chatzam.data.di.BackgroundExecutor;
+import com.wornux.chatzam.data.local.SyncedProfileStore;
 import com.wornux.chatzam.data.repositories.UserRepository;
 import com.wornux.chatzam.data.repositories.StorageRepository;
-import com.wornux.chatzam.data.repositories.ChatRepository;
 import com.wornux.chatzam.data.entities.User;
-import com.wornux.chatzam.data.dto.UserDto;
-import com.wornux.chatzam.data.entities.Chat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -23,36 +30,99 @@ import javax.inject.Singleton;
 public class UserService {
 
   private static final String TAG = "UserService";
+  private static final String FCM_TOKENS_FIELD = "fcm_tokens";
+  private static final int MAX_FCM_TOKENS = 5;
+  private static final long FCM_TOKEN_MAX_AGE_MS = 60L * 24 * 60 * 60 * 1000;
+  private static final List<String> PROFILE_FIELDS =
+      Arrays.asList("email", "display_name", "profile_image_url", "status");
 
   private final UserRepository userRepository;
   private final StorageRepository storageRepository;
-  private final ChatRepository chatRepository;
+  private final SyncedProfileStore syncedProfileStore;
+  private final Executor backgroundExecutor;
 
   @Inject
   public UserService(
       UserRepository userRepository,
       StorageRepository storageRepository,
-      ChatRepository chatRepository) {
+      SyncedProfileStore syncedProfileStore,
+      @BackgroundExecutor Executor backgroundExecutor) {
     this.userRepository = userRepository;
     this.storageRepository = storageRepository;
-    this.chatRepository = chatRepository;
+    this.syncedProfileStore = syncedProfileStore;
+    this.backgroundExecutor = backgroundExecutor;
   }
 
   public Task<Void> updateFmcTokens(String userId, String token) {
+    Map<String, String> synced = syncedProfileStore.get(userId);
+    if (synced != null && splitTokens(synced.get(FCM_TOKENS_FIELD)).contains(token)) {
+      Log.i(
+          TAG,
+          String.format(
+              "canonical-log-line update_fcm_tokens status=skipped user_id=%s reason=unchanged",
+              userId));
+      return Tasks.forResult(null);
+    }
+
     return userRepository
-        .updateFmcTOkens(userId, token)
-        .continueWithTask(task -> {
-          if (task.isSuccessful()) {
-            return getUserProfile(userId)
-                .continueWithTask(userTask -> {
-                  if (userTask.isSuccessful() && userTask.getResult() != null) {
-                    return syncParticipantDetailsInChats(userTask.getResult());
-                  }
-                  return Tasks.forResult(null);
-                });
-          }
-          return task;
+        .addFcmToken(userId, token)
+        .onSuccessTask(backgroundExecutor, unused -> getUserProfile(userId))
+        .onSuccessTask(backgroundExecutor, user -> pruneFcmTokens(user, token))
+        .onSuccessTask(backgroundExecutor, this::recordSyncedProfile);
+  }
+
+  public Task<Void> removeFcmToken(String userId, String token) {
+    syncedProfileStore.clear(userId);
+    return userRepository.removeFcmTokens(userId, Collections.singletonList(token));
+  }
+
+  private Task<User> pruneFcmTokens(User user, String currentToken) {
+    if (user == null || user.getFcmTokens() == null) {
+      return Tasks.forResult(user);
+    }
+
+    Map<String, Timestamp> lastSeen =
+        user.getFcmTokenLastSeen() != null ? user.getFcmTokenLastSeen() : new HashMap<>();
+    long staleBefore = System.currentTimeMillis() - FCM_TOKEN_MAX_AGE_MS;
+
+    List<String> activeTokens = new ArrayList<>();
+    List<String> staleTokens = new ArrayList<>();
+    for (String token : user.getFcmTokens()) {
+      Timestamp seen = lastSeen.get(token);
+      if (token.equals(currentToken) || (seen != null && seen.toDate().getTime() >= staleBefore)) {
+        activeTokens.add(token);
+      } else {
+        staleTokens.add(token);
+      }
+    }
+
+    activeTokens.sort(
+        (a, b) -> {
+          if (a.equals(currentToken)) return -1;
+          if (b.equals(currentToken)) return 1;
+          return lastSeen.get(b).compareTo(lastSeen.get(a));
         });
+    while (activeTokens.size() > MAX_FCM_TOKENS) {
+      staleTokens.add(activeTokens.remove(activeTokens.size() - 1));
+    }
+
+    if (staleTokens.isEmpty()) {
+      return Tasks.forResult(user);
+    }
+
+    Log.i(
+        TAG,
+        String.format(
+            "canonical-log-line prune_fcm_tokens user_id=%s active_count=%d pruned_count=%d",
+            user.getUserId(), activeTokens.size(), staleTokens.size()));
+
+    user.setFcmTokens(activeTokens);
+    for (String token : staleTokens) {
+      lastSeen.remove(token);
+    }
+    return userRepository
+        .removeFcmTokens(user.getUserId(), staleTokens)
+        .onSuccessTask(backgroundExecutor, unused -> Tasks.forResult(user));
   }
 
   public Task<Void> createUserProfile(User user) {
@@ -71,19 +141,71 @@ public class UserService {
   }
 
   public Task<Void> updateUserProfile(User user) {
+    String userId = user.getUserId();
+    Map<String, String> synced = syncedProfileStore.get(userId);
+    Map<String, String> projection = profileProjection(user);
+
+    Set<String> changedFields = new HashSet<>();
+    for (String field : PROFILE_FIELDS) {
+      if (synced == null || !Objects.equals(synced.get(field), projection.get(field))) {
+        changedFields.add(field);
+      }
+    }
+
+    if (changedFields.isEmpty()) {
+      Log.i(
+          TAG,
+          String.format(
+              "canonical-log-line update_user_profile status=skipped user_id=%s reason=unchanged",
+              userId));
+      return Tasks.forResult(null);
+    }
+
     return userRepository
-        .updateUser(user)
+        .updateProfileFields(user, changedFields)
+        .onSuccessTask(backgroundExecutor, unused -> getUserProfile(userId))
+        .onSuccessTask(backgroundExecutor, this::recordSyncedProfile);
+  }
+
+  /**
+   * Answers from the on-device directory when it can. While the directory is incomplete and has
+   * fewer hits than a full page, the server results are merged in, since the missing users may be
+   * the ones that match.
+   */
+  public Task<List<User>> searchUsers(String query) {
+    return userRepository
+        .searchDirectory(query)
         .continueWithTask(
+            backgroundExecutor,
             task -> {
-              if (task.isSuccessful()) {
-                return syncParticipantDetailsInChats(user);
+              List<User> local =
+                  task.isSuccessful() ? task.getResult() : Collections.<User>emptyList();
+              if (!local.isEmpty()
+                  && (userRepository.isDirectoryComplete()
+                      || local.size() >= UserRepository.SEARCH_RESULT_LIMIT)) {
+                return Tasks.forResult(local);
+              }
+              if (local.isEmpty()) {
+                return userRepository.searchUsers(query);
               }
-              return task;
+              return userRepository
+                  .searchUsers(query)
+                  .continueWith(
+                      backgroundExecutor,
+                      server ->
+                          server.isSuccessful() ? mergeResults(local, server.getResult()) : local);
             });
   }
 
-  public Task<List<User>> searchUsers(String query) {
-    return userRepository.searchUsers(query);
+  private List<User> mergeResults(List<User> local, List<User> server) {
+    Map<String, User> merged = new LinkedHashMap<>();
+    for (User user : local) {
+      merged.put(user.getUserId(), user);
+    }
+    for (User user : server) {
+      merged.put(user.getUserId(), user);
+    }
+    return UserRepository.topResults(merged.values());
   }
 
   public Task<String> uploadProfileImage(String userId, Uri imageUri) {
@@ -101,65 +223,31 @@ public class UserService {
             });
   }
 
-  private Task<Void> syncParticipantDetailsInChats(User user) {
-    if (user == null || user.getUserId() == null) {
-      Log.w(TAG, "Cannot sync participant details: user is null");
-      return Tasks.forResult(null);
+  private Task<Void> recordSyncedProfile(User user) {
+    if (user != null) {
+      syncedProfileStore.put(user.getUserId(), profileProjection(user));
     }
+    return Tasks.forResult(null);
+  }
 
-    String userId = user.getUserId();
-
-    UserDto userDTO =
-        UserDto.builder()
-            .userId(userId)
-            .displayName(user.getDisplayName())
-            .profileImageUrl(user.getProfileImageUrl())
-            .lastSeen(user.getLastSeen())
-            .isOnline(user.isOnline())
-            .fcmTokens(user.getFcmTokens())
-            .build();
-
-    return chatRepository
-        .getChatsByParticipantTask(userId)
-        .continueWithTask(
-            task -> {
-              if (!task.isSuccessful() || task.getResult() == null || task.getResult().isEmpty()) {
-                Log.i(
-                    TAG,
-                    String.format(
-                        "canonical-log-line sync_participant_details status=skipped user_id=%s chat_count=0  reason=no_chats",
-                        userId));
-                return Tasks.forResult(null);
-              }
-
-              List<Task<Void>> updateTasks = new ArrayList<>();
-              int chatCount = task.getResult().size();
-
-              for (Chat chat : task.getResult()) {
-                updateTasks.add(
-                    chatRepository.updateSingleParticipantDetail(
-                        chat.getChatId(), userId, userDTO));
-              }
+  private static Map<String, String> profileProjection(User user) {
+    Map<String, String> projection = new HashMap<>();
+    projection.put("email", user.getEmail());
+    projection.put("display_name", user.getDisplayName());
+    projection.put("profile_image_url", user.getProfileImageUrl());
+    projection.put("status", user.getStatus() != null ? user.getStatus().name() : null);
+
+    List<String> tokens =
+        user.getFcmTokens() != null ? new ArrayList<>(user.getFcmTokens()) : new ArrayList<>();
+    Collections.sort(tokens);
+    projection.put(FCM_TOKENS_FIELD, String.join(",", tokens));
+    return projection;
+  }
 
-              return Tasks.whenAllSuccess(updateTasks)
-                  .continueWith(
-                      completedTask -> {
-                        boolean success = completedTask.isSuccessful();
-                        String status = success ? "success" : "failed";
-
-                        String errorMsg = "";
-                        if (!success && completedTask.getException() != null) {
-                          errorMsg = " error=\"" + completedTask.getException().getMessage() + "\"";
-                        }
-
-                        Log.i(
-                            TAG,
-                            String.format(
-                                "canonical-log-line sync_participant_details status=%s user_id=%s chat_count=%d%s",
-                                status, userId, chatCount, errorMsg));
-
-                        return null;
-                      });
-            });
+  private static List<String> splitTokens(String tokens) {
+    if (tokens == null || tokens.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(tokens.split(","));
   }
 }
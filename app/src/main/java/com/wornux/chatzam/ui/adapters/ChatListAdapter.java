@@ -14,13 +14,20 @@ import com.wornux.chatzam.R;
 import com.wornux.chatzam.data.dto.UserDto;
 import com.wornux.chatzam.databinding.ItemChatBinding;
 import com.wornux.chatzam.data.entities.Chat;
+import com.wornux.chatzam.utils.TimestampFormatter;
 import lombok.Setter;
 
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.List;
 import java.util.Objects;
 
 public class ChatListAdapter extends ListAdapter<Chat, ChatListAdapter.ChatViewHolder> {
+  private static final int PAYLOAD_LAST_MESSAGE = 1;
+  private static final int PAYLOAD_UNREAD_COUNT = 1 << 1;
+  private static final int PAYLOAD_AVATAR = 1 << 2;
+  private static final int PAYLOAD_NAME = 1 << 3;
+
+  private final StableIds stableIds = new StableIds();
+  private final TimestampFormatter timestampFormatter;
   private OnChatClickListener clickListener;
   @Setter
   private String currentUserId;
@@ -35,8 +42,15 @@ public class ChatListAdapter extends ListAdapter<Chat, ChatListAdapter.ChatViewH
     this.clickListener = listener;
   }
 
-  public ChatListAdapter() {
+  public ChatListAdapter(TimestampFormatter timestampFormatter) {
     super(DIFF_CALLBACK);
+    this.timestampFormatter = timestampFormatter;
+    setHasStableIds(true);
+  }
+
+  @Override
+  public long getItemId(int position) {
+    return stableIds.idOf(getItem(position).getChatId());
   }
 
   @NonNull
@@ -50,7 +64,23 @@ public class ChatListAdapter extends ListAdapter<Chat, ChatListAdapter.ChatViewH
   @Override
   public void onBindViewHolder(@NonNull ChatViewHolder holder, int position) {
     Chat chat = getItem(position);
-    holder.bind(chat, clickListener, currentUserId);
+    holder.bind(chat, clickListener, currentUserId, timestampFormatter);
+  }
+
+  @Override
+  public void onBindViewHolder(
+      @NonNull ChatViewHolder holder, int position, @NonNull List<Object> payloads) {
+    if (payloads.isEmpty()) {
+      onBindViewHolder(holder, position);
+      return;
+    }
+
+    int changes = 0;
+    for (Object payload : payloads) {
+      changes |= (Integer) payload;
+    }
+    holder.bindChanges(
+        getItem(position), changes, clickListener, currentUserId, timestampFormatter);
   }
 
   public static class ChatViewHolder extends RecyclerView.ViewHolder {
@@ -61,15 +91,41 @@ public class ChatListAdapter extends ListAdapter<Chat, ChatListAdapter.ChatViewH
       this.binding = binding;
     }
 
-    public void bind(Chat chat, OnChatClickListener listener, String currentUserId) {
+    public void bind(
+        Chat chat,
+        OnChatClickListener listener,
+        String currentUserId,
+        TimestampFormatter formatter) {
       setupChatName(chat, currentUserId);
       setupChatImage(chat, currentUserId);
       setupLastMessage(chat);
-      setupTimestamp(chat);
+      setupTimestamp(chat, formatter);
       setupUnreadBadge(chat);
       setupClickListeners(chat, listener);
     }
 
+    void bindChanges(
+        Chat chat,
+        int changes,
+        OnChatClickListener listener,
+        String currentUserId,
+        TimestampFormatter formatter) {
+      if ((changes & PAYLOAD_NAME) != 0) {
+        setupChatName(chat, currentUserId);
+      }
+      if ((changes & PAYLOAD_AVATAR) != 0) {
+        setupChatImage(chat, currentUserId);
+      }
+      if ((changes & PAYLOAD_LAST_MESSAGE) != 0) {
+        setupLastMessage(chat);
+        setupTimestamp(chat, formatter);
+      }
+      if ((changes & PAYLOAD_UNREAD_COUNT) != 0) {
+        setupUnreadBadge(chat);
+      }
+      setupClickListeners(chat, listener);
+    }
+
     private void setupChatName(Chat chat, String currentUserId) {
       String chatName = chat.getDisplayName(currentUserId);
       binding.chatNameText.setText(chatName);
@@ -114,10 +170,9 @@ public class ChatListAdapter extends ListAdapter<Chat, ChatListAdapter.ChatViewH
       binding.lastMessageText.setVisibility(View.VISIBLE);
     }
 
-    private void setupTimestamp(Chat chat) {
+    private void setupTimestamp(Chat chat, TimestampFormatter formatter) {
       if (chat.getLastMessageTimestamp() != null) {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        binding.timestampText.setText(timeFormat.format(chat.getLastMessageTimestamp().toDate()));
+        binding.timestampText.setText(formatter.formatDayOrTime(chat.getLastMessageTimestamp()));
         binding.timestampText.setVisibility(View.VISIBLE);
       } else {
         binding.timestampText.setVisibility(View.GONE);
@@ -162,7 +217,33 @@ public class ChatListAdapter extends ListAdapter<Chat, ChatListAdapter.ChatViewH
 
         @Override
         public boolean areContentsTheSame(@NonNull Chat oldItem, @NonNull Chat newItem) {
-          return oldItem.equals(newItem);
+          return oldItem == newItem || oldItem.hasSameContent(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Chat oldItem, @NonNull Chat newItem) {
+          if (oldItem.getChatType() != newItem.getChatType()) return null;
+
+          int changes = 0;
+          if (!Objects.equals(oldItem.getLastMessageContent(), newItem.getLastMessageContent())
+              || !Objects.equals(
+                  oldItem.getLastMessageTimestamp(), newItem.getLastMessageTimestamp())) {
+            changes |= PAYLOAD_LAST_MESSAGE;
+          }
+          if (oldItem.getUnreadCount() != newItem.getUnreadCount()) {
+            changes |= PAYLOAD_UNREAD_COUNT;
+          }
+          if (oldItem.isGroup()) {
+            if (!Objects.equals(oldItem.getGroupName(), newItem.getGroupName())) {
+              changes |= PAYLOAD_NAME;
+            }
+            if (!Objects.equals(oldItem.getGroupImageUrl(), newItem.getGroupImageUrl())) {
+              changes |= PAYLOAD_AVATAR;
+            }
+          } else if (!oldItem.hasSameParticipantDetails(newItem)) {
+            changes |= PAYLOAD_NAME | PAYLOAD_AVATAR;
+          }
+          return changes != 0 ? changes : null;
         }
       };
 }
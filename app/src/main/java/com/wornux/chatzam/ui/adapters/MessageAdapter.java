@@ -1,5 +1,9 @@
 package com.wornux.chatzam.ui.adapters;
 
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,22 +14,42 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.wornux.chatzam.R;
 import com.wornux.chatzam.databinding.ItemMessageReceivedBinding;
 import com.wornux.chatzam.databinding.ItemMessageSentBinding;
 import com.wornux.chatzam.data.entities.Message;
 import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.enums.SendStatus;
+import com.wornux.chatzam.utils.BlurHash;
+import com.wornux.chatzam.utils.TimestampFormatter;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder> {
 
-    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+    private static final int PAYLOAD_CONTENT = 1;
+    private static final int PAYLOAD_SEND_STATUS = 1 << 1;
+    private static final int PAYLOAD_READ_RECEIPT = 1 << 2;
+
+    private static final int PLACEHOLDER_WIDTH = 32;
+    private static final float MIN_IMAGE_ASPECT = 0.5f;
+    private static final float MAX_IMAGE_ASPECT = 4f / 3f;
+    private static final LruCache<String, Bitmap> PLACEHOLDERS = new LruCache<>(64);
+
+    private final StableIds stableIds = new StableIds();
+    private final TimestampFormatter timestampFormatter;
     private OnMessageClickListener clickListener;
+    private Map<String, Integer> uploadProgress = Collections.emptyMap();
+    @Setter
+    private OnFailedMessageListener failedMessageListener;
     @Setter
     private String currentUserId;
 
@@ -33,15 +57,50 @@ public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder
         void onImageClick(Message message);
     }
 
-    public MessageAdapter(String currentUserId) {
+    public interface OnFailedMessageListener {
+        void onRetry(Message message);
+
+        void onDiscard(Message message);
+    }
+
+    public MessageAdapter(String currentUserId, TimestampFormatter timestampFormatter) {
         super(DIFF_CALLBACK);
         this.currentUserId = currentUserId;
+        this.timestampFormatter = timestampFormatter;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idOf(getItem(position).getMessageId());
     }
 
     public void setOnMessageClickListener(OnMessageClickListener listener) {
         this.clickListener = listener;
     }
 
+    /** Rebinds the status of rows whose upload progress changed. */
+    public void setUploadProgress(Map<String, Integer> progress) {
+        Map<String, Integer> previous = uploadProgress;
+        uploadProgress = progress != null ? progress : Collections.emptyMap();
+
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : uploadProgress.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) changed.add(entry.getKey());
+        }
+        for (String messageId : previous.keySet()) {
+            if (!uploadProgress.containsKey(messageId)) changed.add(messageId);
+        }
+        if (changed.isEmpty()) return;
+
+        List<Message> messages = getCurrentList();
+        for (int position = messages.size() - 1; position >= 0 && !changed.isEmpty(); position--) {
+            if (changed.remove(messages.get(position).getMessageId())) {
+                notifyItemChanged(position, PAYLOAD_SEND_STATUS);
+            }
+        }
+    }
+
     @Override
     public int getItemViewType(int position) {
         Message message = getItem(position);
@@ -66,10 +125,32 @@ public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
         Message message = getItem(position);
 
-        if (holder instanceof SentMessageViewHolder sent)
-            sent.bind(message, clickListener, timeFormat);
-        else if (holder instanceof ReceivedMessageViewHolder received)
-            received.bind(message, clickListener, timeFormat);
+        if (holder instanceof BaseMessageViewHolder messageHolder)
+            messageHolder.bind(message, uploadProgress.get(message.getMessageId()), clickListener,
+                    failedMessageListener, timestampFormatter);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !(holder instanceof BaseMessageViewHolder messageHolder)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
+        }
+
+        Message message = getItem(position);
+        if ((changes & PAYLOAD_CONTENT) != 0) {
+            messageHolder.bindContent(message, clickListener);
+        }
+        if ((changes & (PAYLOAD_SEND_STATUS | PAYLOAD_READ_RECEIPT)) != 0) {
+            messageHolder.bindStatus(message, uploadProgress.get(message.getMessageId()),
+                    failedMessageListener, timestampFormatter);
+        }
     }
 
     static class SentMessageViewHolder extends BaseMessageViewHolder {
@@ -95,6 +176,11 @@ public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder
             return binding.timestampText;
         }
 
+        @Override
+        protected boolean showsReadReceipt() {
+            return true;
+        }
+
     }
     static class ReceivedMessageViewHolder extends BaseMessageViewHolder {
 
@@ -130,15 +216,34 @@ public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder
         protected abstract View getMessageTextView();
         protected abstract View getTimestampTextView();
 
-        public void bind(Message message, OnMessageClickListener listener, SimpleDateFormat timeFormat) {
+        protected boolean showsReadReceipt() {
+            return false;
+        }
+
+        public void bind(Message message, Integer uploadProgress, OnMessageClickListener listener,
+                         OnFailedMessageListener failedListener, TimestampFormatter formatter) {
+            bindContent(message, listener);
+            bindStatus(message, uploadProgress, failedListener, formatter);
+        }
+
+        void bindContent(Message message, OnMessageClickListener listener) {
             if (message.getMessageType() == MessageType.IMAGE && message.hasMedia()) {
-                getMessageImageView().setVisibility(View.VISIBLE);
+                ImageView imageView = getMessageImageView();
+                imageView.setVisibility(View.VISIBLE);
                 getMessageTextView().setVisibility(View.GONE);
 
+                ViewGroup.LayoutParams params = imageView.getLayoutParams();
+                int height = imageHeightFor(message, params.width);
+                if (params.height != height) {
+                    params.height = height;
+                    imageView.setLayoutParams(params);
+                }
+
                 Glide.with(itemView.getContext())
-                        .load(message.getMediaUrl())
+                        .load(message.getMediaUrlFor(params.width, height))
+                        .placeholder(placeholderFor(message, imageView))
                         .centerCrop()
-                        .into(getMessageImageView());
+                        .into(imageView);
                 
                 getMessageImageView().setOnClickListener(v -> {
                     if (listener != null) {
@@ -151,13 +256,87 @@ public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder
                 ((TextView) getMessageTextView()).setText(message.getContent());
                 getMessageImageView().setOnClickListener(null);
             }
+        }
+
+        void bindStatus(Message message, Integer uploadProgress,
+                        OnFailedMessageListener failedListener, TimestampFormatter formatter) {
+            TextView timestampView = (TextView) getTimestampTextView();
+            if (message.getSendStatus() == SendStatus.UPLOADING && uploadProgress != null) {
+                timestampView.setText(itemView.getContext()
+                        .getString(R.string.message_status_uploading, uploadProgress));
+            } else if (message.getSendStatus() == SendStatus.UPLOADING
+                    || message.getSendStatus() == SendStatus.PENDING) {
+                timestampView.setText(R.string.message_status_sending);
+            } else if (message.getSendStatus() == SendStatus.FAILED) {
+                timestampView.setText(R.string.message_status_failed);
+            } else if (message.getTimestamp() != null) {
+                String time = formatter.formatTime(message.getTimestamp());
+                timestampView.setText(showsReadReceipt() && isReadByOthers(message)
+                        ? itemView.getContext().getString(R.string.message_status_read, time)
+                        : time);
+            }
+
+            if (message.getSendStatus() == SendStatus.FAILED && failedListener != null) {
+                itemView.setOnClickListener(v -> failedListener.onRetry(message));
+                itemView.setOnLongClickListener(v -> {
+                    failedListener.onDiscard(message);
+                    return true;
+                });
+            } else if (message.getSendStatus() == SendStatus.UPLOADING && failedListener != null) {
+                itemView.setOnClickListener(null);
+                itemView.setOnLongClickListener(v -> {
+                    failedListener.onDiscard(message);
+                    return true;
+                });
+            } else {
+                itemView.setOnClickListener(null);
+                itemView.setOnLongClickListener(null);
+            }
+        }
+
+    }
+
+    private static int imageHeightFor(Message message, int width) {
+        if (message.getMediaWidth() <= 0 || message.getMediaHeight() <= 0) return width;
+
+        float ratio = (float) message.getMediaHeight() / message.getMediaWidth();
+        ratio = Math.max(MIN_IMAGE_ASPECT, Math.min(MAX_IMAGE_ASPECT, ratio));
+        return Math.round(width * ratio);
+    }
 
-            if (message.getTimestamp() != null) {
-                ((TextView) getTimestampTextView()).setText(timeFormat.format(message.getTimestamp().toDate()));
+    private static Drawable placeholderFor(Message message, ImageView imageView) {
+        String hash = message.getMediaPlaceholder();
+        if (hash == null) return null;
+
+        Bitmap bitmap = PLACEHOLDERS.get(hash);
+        if (bitmap == null) {
+            int width = PLACEHOLDER_WIDTH;
+            int height = Math.max(1, imageHeightFor(message, width));
+            try {
+                bitmap = Bitmap.createBitmap(
+                        BlurHash.decode(hash, width, height), width, height, Bitmap.Config.ARGB_8888);
+            } catch (IllegalArgumentException e) {
+                return null;
             }
+            PLACEHOLDERS.put(hash, bitmap);
+        }
+        return new BitmapDrawable(imageView.getResources(), bitmap);
+    }
 
+    private static boolean isReadByOthers(Message message) {
+        if (message.getReadBy() == null) return false;
+        for (String userId : message.getReadBy()) {
+            if (!userId.equals(message.getSenderId())) return true;
         }
+        return false;
+    }
 
+    private static boolean hasSameMedia(Message a, Message b) {
+        return Objects.equals(a.getMediaUrl(), b.getMediaUrl())
+                && Objects.equals(a.getMediaVariants(), b.getMediaVariants())
+                && Objects.equals(a.getMediaPlaceholder(), b.getMediaPlaceholder())
+                && a.getMediaWidth() == b.getMediaWidth()
+                && a.getMediaHeight() == b.getMediaHeight();
     }
 
     private static final DiffUtil.ItemCallback<Message> DIFF_CALLBACK =
@@ -169,8 +348,34 @@ public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder
 
                 @Override
                 public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
-                    return Objects.equals(oldItem.getContent(), newItem.getContent())
-                            && Objects.equals(oldItem.getTimestamp(), newItem.getTimestamp());
+                    return oldItem == newItem
+                            || hasSameMedia(oldItem, newItem)
+                            && oldItem.getMessageType() == newItem.getMessageType()
+                            && Objects.equals(oldItem.getContent(), newItem.getContent())
+                            && Objects.equals(oldItem.getTimestamp(), newItem.getTimestamp())
+                            && oldItem.getSendStatus() == newItem.getSendStatus()
+                            && isReadByOthers(oldItem) == isReadByOthers(newItem);
+                }
+
+                @Override
+                public Object getChangePayload(@NonNull Message oldItem, @NonNull Message newItem) {
+                    if (!hasSameMedia(oldItem, newItem)
+                            || oldItem.getMessageType() != newItem.getMessageType()) {
+                        return null;
+                    }
+
+                    int changes = 0;
+                    if (!Objects.equals(oldItem.getContent(), newItem.getContent())) {
+                        changes |= PAYLOAD_CONTENT;
+                    }
+                    if (oldItem.getSendStatus() != newItem.getSendStatus()
+                            || !Objects.equals(oldItem.getTimestamp(), newItem.getTimestamp())) {
+                        changes |= PAYLOAD_SEND_STATUS;
+                    }
+                    if (isReadByOthers(oldItem) != isReadByOthers(newItem)) {
+                        changes |= PAYLOAD_READ_RECEIPT;
+                    }
+                    return changes != 0 ? changes : null;
                 }
             };
 
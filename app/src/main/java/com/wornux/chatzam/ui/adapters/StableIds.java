@@ -0,0 +1,22 @@
+package com.wornux.chatzam.ui.adapters;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+final class StableIds {
+
+    private final Map<String, Long> ids = new HashMap<>();
+
+    long idOf(String key) {
+        if (key == null) return RecyclerView.NO_ID;
+
+        Long id = ids.get(key);
+        if (id == null) {
+            id = (long) ids.size();
+            ids.put(key, id);
+        }
+        return id;
+    }
+}
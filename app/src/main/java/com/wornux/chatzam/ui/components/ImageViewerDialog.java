@@ -11,6 +11,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.request.RequestListener;
@@ -21,13 +22,16 @@ import org.jetbrains.annotations.NotNull;
 public class ImageViewerDialog extends DialogFragment {
 
     private static final String ARG_IMAGE_URL = "image_url";
+    private static final String ARG_PREVIEW_URL = "preview_url";
     private DialogImageViewerBinding binding;
     private String imageUrl;
+    private String previewUrl;
 
-    public static ImageViewerDialog newInstance(String imageUrl) {
+    public static ImageViewerDialog newInstance(String previewUrl, String imageUrl) {
         ImageViewerDialog dialog = new ImageViewerDialog();
         Bundle args = new Bundle();
         args.putString(ARG_IMAGE_URL, imageUrl);
+        args.putString(ARG_PREVIEW_URL, previewUrl);
         dialog.setArguments(args);
         return dialog;
     }
@@ -39,6 +43,7 @@ public class ImageViewerDialog extends DialogFragment {
 
         if (getArguments() != null) {
             imageUrl = getArguments().getString(ARG_IMAGE_URL);
+            previewUrl = getArguments().getString(ARG_PREVIEW_URL);
         }
     }
 
@@ -88,28 +93,38 @@ public class ImageViewerDialog extends DialogFragment {
 
         showLoading();
 
-        Glide.with(this)
-                .load(imageUrl)
-                .fitCenter()
-                .listener(new RequestListener<>() {
-                    @Override
-                    public boolean onLoadFailed(@Nullable GlideException e, Object model,
-                                                @NotNull Target<Drawable> target, boolean isFirstResource) {
-                        showError();
-                        return false;
-                    }
-
-                    @Override
-                    public boolean onResourceReady(@NotNull Drawable resource, @NotNull Object model,
-                                                   Target<Drawable> target, @NotNull DataSource dataSource,
-                                                   boolean isFirstResource) {
-                        hideLoading();
-                        return false;
-                    }
-                })
+        RequestBuilder<Drawable> request = Glide.with(this).load(imageUrl);
+        if (previewUrl != null && !previewUrl.equals(imageUrl)) {
+            request = request.thumbnail(
+                    Glide.with(this).load(previewUrl).fitCenter().listener(loadListener(false)));
+        }
+
+        request.fitCenter()
+                .listener(loadListener(true))
                 .into(binding.photoView);
     }
 
+    private RequestListener<Drawable> loadListener(boolean showErrorOnFailure) {
+        return new RequestListener<>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                        @NotNull Target<Drawable> target, boolean isFirstResource) {
+                if (showErrorOnFailure) {
+                    showError();
+                }
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(@NotNull Drawable resource, @NotNull Object model,
+                                           Target<Drawable> target, @NotNull DataSource dataSource,
+                                           boolean isFirstResource) {
+                hideLoading();
+                return false;
+            }
+        };
+    }
+
     private void showLoading() {
         binding.loadingProgressBar.setVisibility(View.VISIBLE);
         binding.errorLayout.setVisibility(View.GONE);
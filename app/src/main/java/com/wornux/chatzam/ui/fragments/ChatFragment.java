@@ -1,12 +1,6 @@
 package com.wornux.chatzam.ui.fragments;
 
-import android.Manifest;
-import android.content.Intent;
-import android.content.pm.PackageManager;
-import android.net.Uri;
-import android.os.Build;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
@@ -19,8 +13,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.PopupMenu;
-import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.wornux.chatzam.R;
 import com.wornux.chatzam.databinding.FragmentChatBinding;
 import com.wornux.chatzam.data.entities.Message;
@@ -28,22 +22,27 @@ import com.wornux.chatzam.ui.adapters.MessageAdapter;
 import com.wornux.chatzam.ui.base.BaseFragment;
 import com.wornux.chatzam.ui.components.ImageViewerDialog;
 import com.wornux.chatzam.ui.viewmodels.ChatViewModel;
+import com.wornux.chatzam.utils.TimestampFormatter;
 import dagger.hilt.android.AndroidEntryPoint;
 
+import java.util.List;
 import java.util.Objects;
+import javax.inject.Inject;
 
 @AndroidEntryPoint
 public class ChatFragment extends BaseFragment<ChatViewModel> {
 
+  @Inject TimestampFormatter timestampFormatter;
+
   private FragmentChatBinding binding;
   private MessageAdapter messageAdapter;
 
   private static final String ARG_CHAT_ID = "chat_id";
   private static final String ARG_CHAT_NAME = "chat_name";
+  private static final int LOAD_OLDER_THRESHOLD = 5;
+  private static final int MAX_PICKED_IMAGES = 20;
 
   private ActivityResultLauncher<PickVisualMediaRequest> photoPickerLauncher;
-  private ActivityResultLauncher<Intent> legacyPickerLauncher;
-  private ActivityResultLauncher<String> permissionLauncher;
 
   @Override
   public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -77,21 +76,46 @@ public class ChatFragment extends BaseFragment<ChatViewModel> {
 
   private void setupRecyclerView() {
     String currentUserId = viewModel.getCurrentUserId();
-    messageAdapter = new MessageAdapter(currentUserId);
+    messageAdapter = new MessageAdapter(currentUserId, timestampFormatter);
 
     LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
     layoutManager.setStackFromEnd(true);
 
     binding.messagesRecyclerView.setLayoutManager(layoutManager);
     binding.messagesRecyclerView.setAdapter(messageAdapter);
+    binding.messagesRecyclerView.addOnScrollListener(
+        new RecyclerView.OnScrollListener() {
+          @Override
+          public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= LOAD_OLDER_THRESHOLD) {
+              viewModel.loadOlderMessages();
+            }
+          }
+        });
 
     messageAdapter.setOnMessageClickListener(
             message -> {
               if (message.hasMedia()) {
-                ImageViewerDialog dialog = ImageViewerDialog.newInstance(message.getMediaUrl());
+                ImageViewerDialog dialog =
+                    ImageViewerDialog.newInstance(
+                        message.getMediaUrlFor(0, 0),
+                        message.getMediaUrlFor(Integer.MAX_VALUE, Integer.MAX_VALUE));
                 dialog.show(getParentFragmentManager(), "ImageViewerDialog");
               }
             });
+
+    messageAdapter.setFailedMessageListener(
+        new MessageAdapter.OnFailedMessageListener() {
+          @Override
+          public void onRetry(Message message) {
+            viewModel.retryMessage(message.getMessageId());
+          }
+
+          @Override
+          public void onDiscard(Message message) {
+            viewModel.discardMessage(message.getMessageId());
+          }
+        });
   }
 
   @Override
@@ -102,10 +126,21 @@ public class ChatFragment extends BaseFragment<ChatViewModel> {
             getViewLifecycleOwner(),
             messages -> {
               if (messages != null) {
-                messageAdapter.submitList(messages, this::scrollToBottom);
+                String previousLastId = getLastMessageId(messageAdapter.getCurrentList());
+                messageAdapter.submitList(
+                    messages,
+                    () -> {
+                      if (!Objects.equals(previousLastId, getLastMessageId(messages))) {
+                        scrollToBottom();
+                      }
+                    });
               }
             });
 
+    viewModel
+        .getUploadProgress()
+        .observe(getViewLifecycleOwner(), messageAdapter::setUploadProgress);
+
     viewModel
         .getLoading()
         .observe(
@@ -139,41 +174,24 @@ public class ChatFragment extends BaseFragment<ChatViewModel> {
     }
   }
 
+  private String getLastMessageId(List<Message> messages) {
+    return messages.isEmpty() ? null : messages.get(messages.size() - 1).getMessageId();
+  }
+
   private void scrollToBottom() {
-    if (messageAdapter.getItemCount() > 0) {
+    if (binding != null && messageAdapter.getItemCount() > 0) {
       binding.messagesRecyclerView.scrollToPosition(messageAdapter.getItemCount() - 1);
     }
   }
 
   private void setupActivityResultLaunchers() {
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-      photoPickerLauncher = registerForActivityResult(
-          new ActivityResultContracts.PickVisualMedia(),
-          uri -> {
-            if (uri != null) {
-              viewModel.sendImageMessage(uri);
-            }
-          });
-    }
-
-    legacyPickerLauncher = registerForActivityResult(
-        new ActivityResultContracts.StartActivityForResult(),
-        result -> {
-          if (result.getResultCode() == android.app.Activity.RESULT_OK && result.getData() != null) {
-            Uri imageUri = result.getData().getData();
-            if (imageUri != null) {
-              viewModel.sendImageMessage(imageUri);
-            }
-          }
-        });
-
-    permissionLauncher = registerForActivityResult(
-        new ActivityResultContracts.RequestPermission(),
-        isGranted -> {
-          if (Boolean.TRUE.equals(isGranted)) {
-            openLegacyImagePicker();
-          } else {
-            showError(getString(R.string.permission_denied));
+    // The androidx contract falls back to the system or Play services picker on older releases,
+    // so no storage permission is needed on any API level.
+    photoPickerLauncher = registerForActivityResult(
+        new ActivityResultContracts.PickMultipleVisualMedia(MAX_PICKED_IMAGES),
+        uris -> {
+          if (!uris.isEmpty()) {
+            viewModel.sendImageMessages(uris);
           }
         });
   }
@@ -194,33 +212,10 @@ public class ChatFragment extends BaseFragment<ChatViewModel> {
   }
 
   private void openImagePicker() {
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-      PickVisualMediaRequest request = new PickVisualMediaRequest.Builder()
-          .setMediaType(ActivityResultContracts.PickVisualMedia.ImageOnly.INSTANCE)
-          .build();
-      photoPickerLauncher.launch(request);
-    } else {
-      checkPermissionAndOpenLegacyPicker();
-    }
-  }
-
-  private void checkPermissionAndOpenLegacyPicker() {
-    String permission = Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
-        ? Manifest.permission.READ_MEDIA_IMAGES
-        : Manifest.permission.READ_EXTERNAL_STORAGE;
-
-    if (ContextCompat.checkSelfPermission(requireContext(), permission)
-        == PackageManager.PERMISSION_GRANTED) {
-      openLegacyImagePicker();
-    } else {
-      permissionLauncher.launch(permission);
-    }
-  }
-
-  private void openLegacyImagePicker() {
-    Intent intent = new Intent(Intent.ACTION_PICK);
-    intent.setDataAndType(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, "image/*");
-    legacyPickerLauncher.launch(intent);
+    PickVisualMediaRequest request = new PickVisualMediaRequest.Builder()
+        .setMediaType(ActivityResultContracts.PickVisualMedia.ImageOnly.INSTANCE)
+        .build();
+    photoPickerLauncher.launch(request);
   }
 
   @Override
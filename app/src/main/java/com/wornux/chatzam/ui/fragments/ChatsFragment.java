@@ -13,11 +13,16 @@ import com.wornux.chatzam.data.entities.Chat;
 import com.wornux.chatzam.ui.adapters.ChatListAdapter;
 import com.wornux.chatzam.ui.base.BaseFragment;
 import com.wornux.chatzam.ui.viewmodels.ChatListViewModel;
+import com.wornux.chatzam.utils.TimestampFormatter;
 import dagger.hilt.android.AndroidEntryPoint;
 
+import javax.inject.Inject;
+
 @AndroidEntryPoint
 public class ChatsFragment extends BaseFragment<ChatListViewModel> implements ChatListAdapter.OnChatClickListener {
 
+    @Inject TimestampFormatter timestampFormatter;
+
     private FragmentChatsBinding binding;
     private ChatListAdapter adapter;
 
@@ -35,7 +40,7 @@ public class ChatsFragment extends BaseFragment<ChatListViewModel> implements Ch
     }
 
     private void setupRecyclerView() {
-        adapter = new ChatListAdapter();
+        adapter = new ChatListAdapter(timestampFormatter);
         adapter.setOnChatClickListener(this);
 
         binding.chatsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -10,6 +10,7 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.wornux.chatzam.R;
 import com.wornux.chatzam.databinding.FragmentSettingsBinding;
 import com.wornux.chatzam.services.AuthenticationManager;
+import com.wornux.chatzam.services.FCMTokenService;
 import com.wornux.chatzam.ui.base.BaseFragment;
 import com.wornux.chatzam.ui.viewmodels.SettingsViewModel;
 import dagger.hilt.android.AndroidEntryPoint;
@@ -21,6 +22,7 @@ public class SettingsFragment extends BaseFragment<SettingsViewModel> {
 
   private FragmentSettingsBinding binding;
   @Inject AuthenticationManager authmanager;
+  @Inject FCMTokenService fcmTokenService;
 
   @Override
   public View onCreateView(
@@ -64,12 +66,25 @@ public class SettingsFragment extends BaseFragment<SettingsViewModel> {
         .setMessage(R.string.logout_confirmation_message)
         .setPositiveButton(
             R.string.logout,
-            (dialog, which) -> {
-              authmanager.logoutUser();
-              NavOptions navOptions =
-                  new NavOptions.Builder().setPopUpTo(R.id.mobile_navigation, true).build();
-              getNavController().navigate(R.id.authenticationFragment, null, navOptions);
-            })
+            (dialog, which) ->
+                fcmTokenService
+                    .unregisterToken()
+                    .addOnCompleteListener(
+                        requireActivity(),
+                        task ->
+                            authmanager
+                                .logoutUser()
+                                .addOnCompleteListener(
+                                    requireActivity(),
+                                    cleared -> {
+                                      if (binding == null) return;
+                                      NavOptions navOptions =
+                                          new NavOptions.Builder()
+                                              .setPopUpTo(R.id.mobile_navigation, true)
+                                              .build();
+                                      getNavController()
+                                          .navigate(R.id.authenticationFragment, null, navOptions);
+                                    })))
         .setNegativeButton(R.string.cancel, null)
         .show();
   }
@@ -9,6 +9,7 @@ import com.wornux.chatzam.services.ChatService;
 import com.wornux.chatzam.services.UserService;
 import com.wornux.chatzam.services.AuthenticationManager;
 import com.wornux.chatzam.ui.base.BaseViewModel;
+import com.wornux.chatzam.utils.Debouncer;
 
 import java.util.*;
 import javax.inject.Inject;
@@ -19,12 +20,16 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
 @HiltViewModel
 public class ChatCreationViewModel extends BaseViewModel {
 
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+
     private final UserService userService;
     private final ChatService chatService;
     private final MutableLiveData<List<User>> availableUsers = new MutableLiveData<>();
     private final LiveData<List<Chat>> existingChats;
     private final MutableLiveData<User> selectedUsers = new MutableLiveData<>();
     private final AuthenticationManager authManager;
+    private final Debouncer searchDebouncer = new Debouncer(SEARCH_DEBOUNCE_MS);
+    private int searchGeneration;
 
 
     @Inject
@@ -58,11 +63,13 @@ public class ChatCreationViewModel extends BaseViewModel {
     }
 
     public void searchUsers(String query) {
-        userService.searchUsers(query).addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                availableUsers.setValue(task.getResult());
-            }
-        });
+        int generation = ++searchGeneration;
+        searchDebouncer.submit(() ->
+                userService.searchUsers(query).addOnCompleteListener(task -> {
+                    if (task.isSuccessful() && generation == searchGeneration) {
+                        availableUsers.setValue(task.getResult());
+                    }
+                }));
     }
 
     public void addUserToSelection(User user) {
@@ -76,11 +83,12 @@ public class ChatCreationViewModel extends BaseViewModel {
     private void loadUsers() {
         String currentUserId = getCurrentUserId();
         if (currentUserId != null) {
+            int generation = searchGeneration;
             setLoading(true);
             userService.searchUsers("")
                     .addOnSuccessListener(users -> {
                         setLoading(false);
-                        if (users != null) {
+                        if (generation == searchGeneration && users != null) {
                             List<User> filteredUsers = new ArrayList<>();
                             for (User user : users) {
                                 if (!user.getUserId().equals(currentUserId)) {
@@ -123,4 +131,10 @@ public class ChatCreationViewModel extends BaseViewModel {
                     onCompleteListener.onComplete(task);
                 });
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        searchDebouncer.cancel();
+    }
+}
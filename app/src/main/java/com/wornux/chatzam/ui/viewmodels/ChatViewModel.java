@@ -12,34 +12,61 @@ import com.wornux.chatzam.services.AuthenticationManager;
 import com.wornux.chatzam.services.ChatService;
 import com.wornux.chatzam.data.entities.Message;
 import com.wornux.chatzam.data.enums.MessageType;
+import com.wornux.chatzam.data.enums.SendStatus;
 import com.wornux.chatzam.services.MessageService;
 import com.wornux.chatzam.ui.base.BaseViewModel;
+import com.wornux.chatzam.utils.MessageIds;
 import dagger.hilt.android.lifecycle.HiltViewModel;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import javax.inject.Inject;
 
 @HiltViewModel
 public class ChatViewModel extends BaseViewModel {
 
+  private static final int PAGE_SIZE = 50;
+
   private final MessageService messageService;
   private final AuthenticationManager authManager;
   private final MutableLiveData<String> currentChatId = new MutableLiveData<>();
   private final MediatorLiveData<List<Message>> messagesMediator = new MediatorLiveData<>();
+  private final LiveData<Map<String, Integer>> uploadProgress;
+
+  private List<Message> olderMessages = new ArrayList<>();
+  private List<Message> liveWindow = new ArrayList<>();
+  private Map<String, Message> pendingById = new LinkedHashMap<>();
+  private boolean loadingOlderMessages;
+  private boolean historyExhausted;
+  private int historyGeneration;
 
   @Inject
   public ChatViewModel(MessageService messageService, AuthenticationManager authManager) {
     this.messageService = messageService;
     this.authManager = authManager;
+    this.uploadProgress = messageService.getUploadProgress();
 
     LiveData<List<Message>> emptyMessages = new MutableLiveData<>(new ArrayList<>());
     LiveData<List<Message>> firestoreMessages =
         Transformations.switchMap(
             currentChatId,
-            chatId -> (chatId != null) ? messageService.getMessages(chatId) : emptyMessages);
+            chatId ->
+                (chatId != null)
+                    ? messageService.getLatestMessages(chatId, PAGE_SIZE)
+                    : emptyMessages);
+
+    LiveData<List<Message>> outboxMessages =
+        Transformations.switchMap(
+            currentChatId,
+            chatId -> (chatId != null) ? messageService.getQueuedMessages(chatId) : emptyMessages);
 
-    messagesMediator.addSource(firestoreMessages, messagesMediator::setValue);
+    messagesMediator.addSource(firestoreMessages, this::onLiveWindowChanged);
+    messagesMediator.addSource(outboxMessages, this::onQueuedMessagesChanged);
   }
 
   public LiveData<List<Message>> getMessages() {
@@ -47,9 +74,161 @@ public class ChatViewModel extends BaseViewModel {
   }
 
   public void setChatId(String chatId) {
+    if (Objects.equals(chatId, currentChatId.getValue())) return;
+
+    olderMessages = new ArrayList<>();
+    liveWindow = new ArrayList<>();
+    pendingById = new LinkedHashMap<>();
+    loadingOlderMessages = false;
+    historyExhausted = false;
+    historyGeneration++;
     currentChatId.setValue(chatId);
   }
 
+  public void loadOlderMessages() {
+    String chatId = currentChatId.getValue();
+    List<Message> current = messagesMediator.getValue();
+    if (chatId == null || loadingOlderMessages || historyExhausted) return;
+    if (current == null || current.isEmpty()) return;
+
+    loadingOlderMessages = true;
+    int generation = historyGeneration;
+
+    messageService
+        .getMessagesBefore(chatId, current.get(0), PAGE_SIZE)
+        .addOnSuccessListener(
+            page -> {
+              if (generation != historyGeneration) return;
+
+              loadingOlderMessages = false;
+              historyExhausted = page.size() < PAGE_SIZE;
+
+              List<Message> history = new ArrayList<>(page);
+              history.addAll(olderMessages);
+              olderMessages = history;
+              publishMessages();
+            })
+        .addOnFailureListener(
+            exception -> {
+              if (generation != historyGeneration) return;
+
+              loadingOlderMessages = false;
+              setError("Failed to load older messages: " + exception.getMessage());
+            });
+  }
+
+  private void onLiveWindowChanged(List<Message> window) {
+    if (!window.isEmpty() && !liveWindow.isEmpty()) {
+      Set<String> windowIds = new HashSet<>();
+      for (Message message : window) {
+        windowIds.add(message.getMessageId());
+      }
+
+      List<Message> slidOut = new ArrayList<>();
+      boolean overlaps = false;
+      for (Message message : liveWindow) {
+        if (windowIds.contains(message.getMessageId())) {
+          overlaps = true;
+        } else if (!overlaps) {
+          slidOut.add(message);
+        }
+      }
+
+      if (overlaps) {
+        List<Message> history = new ArrayList<>(olderMessages);
+        history.addAll(slidOut);
+        olderMessages = history;
+      } else {
+        olderMessages = new ArrayList<>();
+        loadingOlderMessages = false;
+        historyGeneration++;
+      }
+    }
+
+    if (olderMessages.isEmpty()) {
+      historyExhausted = window.size() < PAGE_SIZE;
+    }
+
+    liveWindow = window;
+    publishMessages();
+  }
+
+  /**
+   * The outbox also emits for bookkeeping writes such as attempt counts. Queued messages that look
+   * the same keep their previous instance, and nothing is published unless one of them changed.
+   */
+  private void onQueuedMessagesChanged(List<Message> queued) {
+    Map<String, Message> pending = new LinkedHashMap<>();
+    boolean changed = queued.size() != pendingById.size();
+    for (Message message : queued) {
+      Message previous = pendingById.get(message.getMessageId());
+      if (previous != null && looksSame(previous, message)) {
+        pending.put(message.getMessageId(), previous);
+      } else {
+        pending.put(message.getMessageId(), message);
+        changed = true;
+      }
+    }
+    if (!changed) return;
+
+    pendingById = pending;
+    publishMessages();
+  }
+
+  private static boolean looksSame(Message a, Message b) {
+    return a.getSendStatus() == b.getSendStatus()
+        && Objects.equals(a.getContent(), b.getContent())
+        && Objects.equals(a.getTimestamp(), b.getTimestamp())
+        && Objects.equals(a.getMediaUrl(), b.getMediaUrl())
+        && Objects.equals(a.getMediaVariants(), b.getMediaVariants())
+        && Objects.equals(a.getMediaPlaceholder(), b.getMediaPlaceholder())
+        && a.getMediaWidth() == b.getMediaWidth()
+        && a.getMediaHeight() == b.getMediaHeight();
+  }
+
+  private void publishMessages() {
+    List<Message> messages =
+        new ArrayList<>(olderMessages.size() + liveWindow.size() + pendingById.size());
+    messages.addAll(olderMessages);
+
+    Set<String> deliveredIds = new HashSet<>();
+    for (Message message : liveWindow) {
+      deliveredIds.add(message.getMessageId());
+      messages.add(message);
+    }
+
+    for (Message message : pendingById.values()) {
+      if (!deliveredIds.contains(message.getMessageId())) {
+        messages.add(message);
+      }
+    }
+
+    messagesMediator.setValue(messages);
+  }
+
+  public void retryMessage(String messageId) {
+    Message pending = pendingById.get(messageId);
+    if (pending == null || pending.getSendStatus() != SendStatus.FAILED) return;
+
+    messageService
+        .retryQueuedMessage(messageId)
+        .addOnFailureListener(
+            exception -> setError("Failed to retry message: " + exception.getMessage()));
+  }
+
+  public void discardMessage(String messageId) {
+    if (!pendingById.containsKey(messageId)) return;
+
+    messageService
+        .discardQueuedMessage(messageId)
+        .addOnFailureListener(
+            exception -> setError("Failed to discard message: " + exception.getMessage()));
+  }
+
+  public LiveData<Map<String, Integer>> getUploadProgress() {
+    return uploadProgress;
+  }
+
   public String getCurrentUserId() {
     return authManager.getCurrentUser() != null ? authManager.getCurrentUser().getUid() : null;
   }
@@ -68,45 +247,35 @@ public class ChatViewModel extends BaseViewModel {
 
     sendMessage(
         message,
-        messageId -> {},
+        unused -> {},
         exception -> setError("Failed to send message: " + exception.getMessage()));
   }
 
-  public void sendImageMessage(Uri imageUri) {
+  public void sendImageMessages(List<Uri> imageUris) {
     SendContext context = validateSendContext();
     if (context == null) return;
 
-    if (imageUri == null) {
+    if (imageUris == null || imageUris.isEmpty()) {
       setError("Invalid image");
       return;
     }
 
-    setLoading(true);
+    List<Message> messages = new ArrayList<>(imageUris.size());
+    for (int i = 0; i < imageUris.size(); i++) {
+      messages.add(
+          createBaseMessage(context).content("").messageType(MessageType.IMAGE).build());
+    }
 
     messageService
-        .uploadMedia(imageUri, MessageType.IMAGE)
+        .queueImageMessages(messages, imageUris)
         .addOnSuccessListener(
-            downloadUrl -> {
-              Message message =
-                  createBaseMessage(context)
-                      .content("")
-                      .mediaUrl(downloadUrl)
-                      .messageType(MessageType.IMAGE)
-                      .build();
-
-              sendMessage(
-                  message,
-                  messageId -> setLoading(false),
-                  exception -> {
-                    setError("Failed to send image: " + exception.getMessage());
-                    setLoading(false);
-                  });
+            failedCount -> {
+              if (failedCount > 0) {
+                setError("Failed to prepare " + failedCount + " of " + imageUris.size() + " images");
+              }
             })
         .addOnFailureListener(
-            exception -> {
-              setError("Failed to upload image: " + exception.getMessage());
-              setLoading(false);
-            });
+            exception -> setError("Failed to send image: " + exception.getMessage()));
   }
 
   private SendContext validateSendContext() {
@@ -128,32 +297,18 @@ public class ChatViewModel extends BaseViewModel {
 
   private Message.MessageBuilder createBaseMessage(SendContext context) {
     return Message.builder()
-        .messageId("temp_" + System.currentTimeMillis())
+        .messageId(MessageIds.next())
         .senderId(context.userId)
         .chatId(context.chatId)
         .timestamp(Timestamp.now());
   }
 
   private void sendMessage(
-      Message message, OnSuccessListener<String> onSuccess, OnFailureListener onFailure) {
-
-    List<Message> currentMessages = messagesMediator.getValue();
-    if (currentMessages != null) {
-      List<Message> updatedMessages = new ArrayList<>(currentMessages);
-      updatedMessages.add(message);
-      messagesMediator.setValue(updatedMessages);
-    }
-
+      Message message, OnSuccessListener<Void> onSuccess, OnFailureListener onFailure) {
     messageService
-        .sendMessage(message)
+        .queueMessage(message)
         .addOnSuccessListener(onSuccess)
-        .addOnFailureListener(
-            exception -> {
-              if (currentMessages != null) {
-                messagesMediator.setValue(currentMessages);
-              }
-              onFailure.onFailure(exception);
-            });
+        .addOnFailureListener(onFailure);
   }
 
   private record SendContext(String userId, String chatId) {}
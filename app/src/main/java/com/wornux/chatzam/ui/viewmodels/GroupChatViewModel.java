@@ -10,6 +10,7 @@ import com.wornux.chatzam.data.repositories.StorageRepository;
 import com.wornux.chatzam.services.ChatService;
 import com.wornux.chatzam.services.UserService;
 import com.wornux.chatzam.ui.base.BaseViewModel;
+import com.wornux.chatzam.utils.Debouncer;
 import dagger.hilt.android.lifecycle.HiltViewModel;
 
 import java.util.ArrayList;
@@ -21,6 +22,8 @@ import javax.inject.Inject;
 @HiltViewModel
 public class GroupChatViewModel extends BaseViewModel {
     
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    
     private final ChatService chatService;
     private final UserService userService;
     private final AuthenticationManager authManager;
@@ -31,6 +34,8 @@ public class GroupChatViewModel extends BaseViewModel {
     private final MutableLiveData<List<User>> selectedUsers = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<Boolean> groupCreated = new MutableLiveData<>();
     private final MutableLiveData<Uri> groupImageUri = new MutableLiveData<>();
+    private final Debouncer searchDebouncer = new Debouncer(SEARCH_DEBOUNCE_MS);
+    private int searchGeneration;
     
     @Inject
     public GroupChatViewModel(ChatService chatService, 
@@ -71,33 +76,40 @@ public class GroupChatViewModel extends BaseViewModel {
     }
     
     public void searchUsers(String query) {
+        searchDebouncer.cancel();
+        int generation = ++searchGeneration;
+        
         if (query == null || query.trim().isEmpty()) {
             loadAvailableUsers();
             return;
         }
         
-        setLoading(true);
-        userService.searchUsers(query.trim())
-                .addOnSuccessListener(users -> {
-                    setLoading(false);
-                    if (users != null) {
-                        availableUsers.setValue(users);
-                    }
-                })
-                .addOnFailureListener(exception -> {
-                    setLoading(false);
-                    setError("Failed to search users: " + exception.getMessage());
-                });
+        String trimmedQuery = query.trim();
+        searchDebouncer.submit(() -> {
+            setLoading(true);
+            userService.searchUsers(trimmedQuery)
+                    .addOnSuccessListener(users -> {
+                        setLoading(false);
+                        if (generation == searchGeneration && users != null) {
+                            availableUsers.setValue(users);
+                        }
+                    })
+                    .addOnFailureListener(exception -> {
+                        setLoading(false);
+                        setError("Failed to search users: " + exception.getMessage());
+                    });
+        });
     }
     
     public void loadAvailableUsers() {
         String currentUserId = getCurrentUserId();
         if (currentUserId != null) {
+            int generation = searchGeneration;
             setLoading(true);
             userService.searchUsers("")
                     .addOnSuccessListener(users -> {
                         setLoading(false);
-                        if (users != null) {
+                        if (generation == searchGeneration && users != null) {
                             List<User> filteredUsers = new ArrayList<>();
                             for (User user : users) {
                                 if (!user.getUserId().equals(currentUserId)) {
@@ -248,4 +260,10 @@ public class GroupChatViewModel extends BaseViewModel {
         return authManager.getCurrentUser() != null ? 
                authManager.getCurrentUser().getUid() : null;
     }
+    
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        searchDebouncer.cancel();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.wornux.chatzam.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+public final class Debouncer {
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final long delayMillis;
+  private Runnable pending;
+
+  public Debouncer(long delayMillis) {
+    this.delayMillis = delayMillis;
+  }
+
+  public void submit(Runnable action) {
+    cancel();
+    pending = action;
+    handler.postDelayed(action, delayMillis);
+  }
+
+  public void cancel() {
+    if (pending != null) {
+      handler.removeCallbacks(pending);
+      pending = null;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.wornux.chatzam.utils;
+
+import java.security.SecureRandom;
+
+/**
+ * Generates lexicographically sortable message ids: a 48-bit millisecond prefix followed by an
+ * 80-bit random suffix, both Crockford base32 encoded. Ids created in the same millisecond on this
+ * device increment the suffix so ordering matches creation order.
+ */
+public final class MessageIds {
+
+    private static final int LENGTH = 26;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TIME_CHARS = 10;
+    private static final long RANDOM_HIGH_MASK = 0xFFFFL;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static long lastMillis = -1;
+    private static long randomHigh;
+    private static long randomLow;
+
+    private MessageIds() {
+        //not required
+    }
+
+    public static synchronized String next() {
+        long now = System.currentTimeMillis();
+
+        if (now > lastMillis) {
+            lastMillis = now;
+            randomHigh = RANDOM.nextInt() & RANDOM_HIGH_MASK;
+            randomLow = RANDOM.nextLong();
+        } else if (++randomLow == 0) {
+            randomHigh = (randomHigh + 1) & RANDOM_HIGH_MASK;
+            if (randomHigh == 0) {
+                lastMillis++;
+            }
+        }
+
+        return encode(lastMillis, randomHigh, randomLow);
+    }
+
+    private static String encode(long millis, long high, long low) {
+        char[] chars = new char[LENGTH];
+
+        for (int i = TIME_CHARS - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (millis & 31)];
+            millis >>>= 5;
+        }
+
+        for (int i = 0; i < LENGTH - TIME_CHARS; i++) {
+            int shift = 75 - 5 * i;
+            long bits;
+            if (shift >= 64) {
+                bits = high >>> (shift - 64);
+            } else if (shift + 5 <= 64) {
+                bits = low >>> shift;
+            } else {
+                bits = (high << (64 - shift)) | (low >>> shift);
+            }
+            chars[TIME_CHARS + i] = ALPHABET[(int) (bits & 31)];
+        }
+
+        return new String(chars);
+    }
+}
@@ -7,6 +7,8 @@ public final class PreferenceConstants {
     public static final String KEY_PUSH_NOTIFICATIONS = "push_notifications";
     public static final String KEY_MESSAGE_SOUNDS = "message_sounds";
     public static final String KEY_SHOW_ONLINE_STATUS = "show_online_status";
+    public static final String KEY_SYNCED_PROFILE_PREFIX = "synced_profile_";
+    public static final String KEY_USER_DIRECTORY_SCANNED = "user_directory_scanned";
 
     public static final boolean DEFAULT_PUSH_NOTIFICATIONS = true;
     public static final boolean DEFAULT_MESSAGE_SOUNDS = true;
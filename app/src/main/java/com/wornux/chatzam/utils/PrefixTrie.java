@@ -0,0 +1,71 @@
+package com.wornux.chatzam.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+public final class PrefixTrie {
+
+  private final Node root = new Node();
+
+  public void insert(String key, String value) {
+    Node node = root;
+    for (int i = 0; i < key.length(); i++) {
+      node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+    }
+    if (node.values == null) {
+      node.values = new HashSet<>();
+    }
+    node.values.add(value);
+  }
+
+  public void remove(String key, String value) {
+    Node node = find(key);
+    if (node != null && node.values != null) {
+      node.values.remove(value);
+    }
+  }
+
+  public Set<String> search(String prefix, int limit) {
+    Set<String> results = new LinkedHashSet<>();
+    Node start = find(prefix);
+    if (start == null) {
+      return results;
+    }
+
+    Deque<Node> pending = new ArrayDeque<>();
+    pending.push(start);
+    while (!pending.isEmpty() && results.size() < limit) {
+      Node node = pending.pop();
+      if (node.values != null) {
+        for (String value : node.values) {
+          results.add(value);
+          if (results.size() >= limit) {
+            break;
+          }
+        }
+      }
+      for (Node child : node.children.values()) {
+        pending.push(child);
+      }
+    }
+    return results;
+  }
+
+  private Node find(String key) {
+    Node node = root;
+    for (int i = 0; i < key.length() && node != null; i++) {
+      node = node.children.get(key.charAt(i));
+    }
+    return node;
+  }
+
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private Set<String> values;
+  }
+}
@@ -0,0 +1,61 @@
+package com.wornux.chatzam.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class SearchKeyUtils {
+    
+    // functions/src/services/search-key-service.ts builds the same keys server-side.
+    public static final int MAX_KEY_LENGTH = 20;
+    
+    private SearchKeyUtils() {
+        //not required
+    }
+    
+    public static List<String> buildSearchKeys(String displayName, String email) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String token : searchTokens(displayName, email)) {
+            addPrefixes(keys, token);
+        }
+        return new ArrayList<>(keys);
+    }
+    
+    public static List<String> searchTokens(String displayName, String email) {
+        Set<String> tokens = new LinkedHashSet<>();
+        
+        String normalizedName = normalize(displayName);
+        tokens.add(normalizedName);
+        tokens.addAll(Arrays.asList(normalizedName.split(" ")));
+        
+        String normalizedEmail = normalize(email);
+        tokens.add(normalizedEmail);
+        int at = normalizedEmail.indexOf('@');
+        if (at > 0) {
+            tokens.addAll(Arrays.asList(normalizedEmail.substring(0, at).split("[._+-]")));
+        }
+        
+        tokens.remove("");
+        return new ArrayList<>(tokens);
+    }
+    
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        String normalized = stripped.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+        return normalized.length() > MAX_KEY_LENGTH ? normalized.substring(0, MAX_KEY_LENGTH) : normalized;
+    }
+    
+    private static void addPrefixes(Set<String> keys, String value) {
+        for (int i = 1; i <= value.length(); i++) {
+            keys.add(value.substring(0, i));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wornux.chatzam.utils;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+public final class TaskUtils {
+
+  private TaskUtils() {
+    //not required
+  }
+
+  public static <T> Task<T> call(Executor executor, Callable<T> callable) {
+    TaskCompletionSource<T> source = new TaskCompletionSource<>();
+    executor.execute(
+        () -> {
+          try {
+            source.setResult(callable.call());
+          } catch (Exception e) {
+            source.setException(e);
+          }
+        });
+    return source.getTask();
+  }
+}
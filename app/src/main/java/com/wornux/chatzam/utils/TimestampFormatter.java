@@ -0,0 +1,149 @@
+package com.wornux.chatzam.utils;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.util.LongSparseArray;
+import androidx.core.content.ContextCompat;
+import com.google.firebase.Timestamp;
+import com.wornux.chatzam.R;
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Formats row timestamps from cached minute and day labels. Day boundaries are computed once and
+ * refreshed when the current day rolls over, or after a time, time zone or locale change broadcast,
+ * so a bind only does a range check, arithmetic and a cache lookup.
+ * Not thread-safe; meant to be called from adapters on the main thread.
+ */
+@Singleton
+public class TimestampFormatter {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+    private static final int MAX_CACHED_LABELS = 1024;
+
+    private final Context context;
+    private final LongSparseArray<String> timeLabels = new LongSparseArray<>();
+    private final LongSparseArray<String> dayLabels = new LongSparseArray<>();
+
+    private volatile boolean settingsChanged;
+    private String yesterdayLabel;
+    private TimeZone timeZone;
+    private SimpleDateFormat timeFormat;
+    private SimpleDateFormat monthDayFormat;
+    private SimpleDateFormat fullDateFormat;
+    private long yearStart;
+    private long yesterdayStart;
+    private long todayStart;
+    private long tomorrowStart;
+
+    @Inject
+    public TimestampFormatter(@ApplicationContext Context context) {
+        this.context = context;
+        refreshBoundaries(System.currentTimeMillis());
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        ContextCompat.registerReceiver(context, new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                settingsChanged = true;
+            }
+        }, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    public String formatTime(Timestamp timestamp) {
+        if (timestamp == null) return "";
+        ensureCurrentDay();
+        return timeLabel(toMillis(timestamp));
+    }
+
+    public String formatDayOrTime(Timestamp timestamp) {
+        if (timestamp == null) return "";
+        ensureCurrentDay();
+
+        long millis = toMillis(timestamp);
+        if (millis >= todayStart && millis < tomorrowStart) return timeLabel(millis);
+        if (millis >= yesterdayStart && millis < todayStart) return yesterdayLabel;
+
+        long day = Math.floorDiv(millis + timeZone.getOffset(millis), DAY_MILLIS);
+        String label = dayLabels.get(day);
+        if (label == null) {
+            SimpleDateFormat format = millis >= yearStart ? monthDayFormat : fullDateFormat;
+            label = format.format(millis);
+            putBounded(dayLabels, day, label);
+        }
+        return label;
+    }
+
+    private String timeLabel(long millis) {
+        long minute = Math.floorDiv(millis, MINUTE_MILLIS);
+        String label = timeLabels.get(minute);
+        if (label == null) {
+            label = timeFormat.format(minute * MINUTE_MILLIS);
+            putBounded(timeLabels, minute, label);
+        }
+        return label;
+    }
+
+    private void ensureCurrentDay() {
+        long now = System.currentTimeMillis();
+        if (settingsChanged || now >= tomorrowStart || now < todayStart) {
+            settingsChanged = false;
+            refreshBoundaries(now);
+        }
+    }
+
+    private void refreshBoundaries(long now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        todayStart = calendar.getTimeInMillis();
+
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        tomorrowStart = calendar.getTimeInMillis();
+
+        calendar.add(Calendar.DAY_OF_MONTH, -2);
+        yesterdayStart = calendar.getTimeInMillis();
+
+        calendar.setTimeInMillis(todayStart);
+        calendar.set(Calendar.DAY_OF_YEAR, 1);
+        yearStart = calendar.getTimeInMillis();
+
+        Locale locale = Locale.getDefault();
+        timeZone = calendar.getTimeZone();
+        yesterdayLabel = context.getString(R.string.yesterday);
+        timeFormat = new SimpleDateFormat("HH:mm", locale);
+        monthDayFormat = new SimpleDateFormat(
+                android.text.format.DateFormat.getBestDateTimePattern(locale, "MMMd"), locale);
+        fullDateFormat = new SimpleDateFormat(
+                android.text.format.DateFormat.getBestDateTimePattern(locale, "yMd"), locale);
+
+        timeLabels.clear();
+        dayLabels.clear();
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1000L + timestamp.getNanoseconds() / 1_000_000;
+    }
+
+    private static void putBounded(LongSparseArray<String> labels, long key, String label) {
+        if (labels.size() >= MAX_CACHED_LABELS) {
+            labels.clear();
+        }
+        labels.put(key, label);
+    }
+}
@@ -0,0 +1,65 @@
+package com.wornux.chatzam.data.entities;
+
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MessageTest {
+
+    private static final String THUMB_URL = "https://cdn/thumb.jpg";
+    private static final String MEDIUM_URL = "https://cdn/medium.jpg";
+    private static final String ORIGINAL_URL = "https://cdn/original.jpg";
+
+    @Test
+    public void getMediaUrlFor_picksSmallestVariantCoveringBothAxes() {
+        Message message = portrait();
+
+        assertEquals(THUMB_URL, message.getMediaUrlFor(840, 1120));
+        assertEquals(MEDIUM_URL, message.getMediaUrlFor(1120, 1493));
+        assertEquals(THUMB_URL, message.getMediaUrlFor(0, 0));
+    }
+
+    @Test
+    public void getMediaUrlFor_comparesTheCroppedAxis() {
+        // A 2:1 panorama in a bubble clamped to half its width in height: the height decides.
+        Message message = Message.builder()
+                .mediaUrl(ORIGINAL_URL)
+                .mediaVariants(Arrays.asList(
+                        variant(MediaRendition.THUMB, THUMB_URL, 1120, 373),
+                        variant(MediaRendition.MEDIUM, MEDIUM_URL, 1600, 533),
+                        variant(MediaRendition.ORIGINAL, ORIGINAL_URL, 2048, 683)))
+                .build();
+
+        assertEquals(MEDIUM_URL, message.getMediaUrlFor(840, 420));
+    }
+
+    @Test
+    public void getMediaUrlFor_fallsBackToLargestVariant() {
+        assertEquals(ORIGINAL_URL, portrait().getMediaUrlFor(Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void getMediaUrlFor_usesMediaUrlWithoutVariants() {
+        Message message = Message.builder().mediaUrl(ORIGINAL_URL).build();
+
+        assertEquals(ORIGINAL_URL, message.getMediaUrlFor(840, 1120));
+    }
+
+    private static Message portrait() {
+        return Message.builder()
+                .mediaUrl(ORIGINAL_URL)
+                .mediaVariants(Arrays.asList(
+                        variant(MediaRendition.THUMB, THUMB_URL, 840, 1120),
+                        variant(MediaRendition.MEDIUM, MEDIUM_URL, 1200, 1600),
+                        variant(MediaRendition.ORIGINAL, ORIGINAL_URL, 1536, 2048)))
+                .build();
+    }
+
+    private static MediaVariant variant(MediaRendition rendition, String url, int width, int height) {
+        return MediaVariant.builder().rendition(rendition).url(url).width(width).height(height).build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.Timestamp;
+import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.entities.Chat;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.ChatType;
+import com.wornux.chatzam.data.enums.MessageType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ChatMapperTest {
+
+    private static final Timestamp CREATED_AT = new Timestamp(1_690_000_000L, 0);
+    private static final Timestamp LAST_MESSAGE_AT = new Timestamp(1_700_000_000L, 500_000);
+
+    @Test
+    public void roundTrip_keepsNestedParticipantDetailsAndLastMessage() {
+        Map<String, UserDto> participantDetails = new HashMap<>();
+        participantDetails.put("u1", user("u1", "Ana"));
+        participantDetails.put("u2", user("u2", "Luis"));
+        Message lastMessage = Message.builder()
+                .messageId("m9")
+                .senderId("u2")
+                .chatId("c1")
+                .content("nos vemos")
+                .messageType(MessageType.TEXT)
+                .timestamp(LAST_MESSAGE_AT)
+                .build();
+        Chat chat = Chat.builder()
+                .chatId("c1")
+                .participants(Arrays.asList("u1", "u2"))
+                .participantDetails(participantDetails)
+                .chatType(ChatType.INDIVIDUAL)
+                .lastMessage(lastMessage)
+                .lastMessageTimestamp(LAST_MESSAGE_AT)
+                .unreadCount(3)
+                .createdBy("u1")
+                .createdAt(CREATED_AT)
+                .encryptionKey("key")
+                .build();
+
+        Chat mapped = ChatMapper.INSTANCE.fromMap(ChatMapper.INSTANCE.toMap(chat));
+
+        assertEquals("c1", mapped.getChatId());
+        assertEquals(Arrays.asList("u1", "u2"), mapped.getParticipants());
+        assertEquals(participantDetails, mapped.getParticipantDetails());
+        assertEquals("Luis", mapped.getDisplayName("u1"));
+        assertEquals(ChatType.INDIVIDUAL, mapped.getChatType());
+        assertEquals("m9", mapped.getLastMessage().getMessageId());
+        assertEquals("nos vemos", mapped.getLastMessageContent());
+        assertEquals(LAST_MESSAGE_AT, mapped.getLastMessage().getTimestamp());
+        assertEquals(LAST_MESSAGE_AT, mapped.getLastMessageTimestamp());
+        assertEquals(3, mapped.getUnreadCount());
+        assertEquals("u1", mapped.getCreatedBy());
+        assertEquals(CREATED_AT, mapped.getCreatedAt());
+        assertEquals("key", mapped.getEncryptionKey());
+        assertTrue(chat.hasSameContent(mapped));
+    }
+
+    @Test
+    public void roundTrip_keepsNullParticipantDetailsAndLastMessage() {
+        Chat chat = Chat.builder().chatId("c1").chatType(ChatType.GROUP).groupName("Team").build();
+
+        Chat mapped = ChatMapper.INSTANCE.fromMap(ChatMapper.INSTANCE.toMap(chat));
+
+        assertNull(mapped.getParticipantDetails());
+        assertNull(mapped.getLastMessage());
+        assertNull(mapped.getLastMessageTimestamp());
+        assertEquals("Team", mapped.getDisplayName("u1"));
+    }
+
+    @Test
+    public void fromMap_skipsMalformedParticipantDetails() {
+        Map<String, Object> details = new HashMap<>();
+        details.put("u1", UserDtoMapper.INSTANCE.toMap(user("u1", "Ana")));
+        details.put("u2", "not a map");
+        Map<String, Object> data = new HashMap<>();
+        data.put("participant_details", details);
+
+        Map<String, UserDto> participantDetails = ChatMapper.INSTANCE.fromMap(data).getParticipantDetails();
+
+        assertEquals(1, participantDetails.size());
+        assertEquals("Ana", participantDetails.get("u1").getDisplayName());
+    }
+
+    @Test
+    public void fromMap_readsDatesAsTimestamps() {
+        Date createdAt = new Date(1_690_000_000_000L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("created_at", createdAt);
+        data.put("last_message_timestamp", createdAt);
+
+        Chat chat = ChatMapper.INSTANCE.fromMap(data);
+
+        assertEquals(new Timestamp(createdAt), chat.getCreatedAt());
+        assertEquals(new Timestamp(createdAt), chat.getLastMessageTimestamp());
+    }
+
+    private static UserDto user(String userId, String displayName) {
+        return UserDto.builder()
+                .userId(userId)
+                .displayName(displayName)
+                .profileImageUrl("https://cdn/" + userId + ".jpg")
+                .lastSeen(CREATED_AT)
+                .isOnline(true)
+                .build();
+    }
+}
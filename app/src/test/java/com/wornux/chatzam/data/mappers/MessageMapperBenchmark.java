@@ -0,0 +1,82 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.util.CustomClassMapper;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.MessageType;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compares {@link MessageMapper} with the reflective CustomClassMapper behind {@code toObjects} on
+ * 1k and 10k document payloads. Ignored by default; remove the annotation to run it locally.
+ */
+@Ignore("Benchmark, run manually")
+public class MessageMapperBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void fromMap_1k() {
+        compare(documents(1_000));
+    }
+
+    @Test
+    public void fromMap_10k() {
+        compare(documents(10_000));
+    }
+
+    private void compare(List<Map<String, Object>> documents) {
+        long mapperNanos = measure(documents, MessageMapper.INSTANCE::fromMap);
+        long reflectionNanos = measure(documents,
+                data -> CustomClassMapper.convertToCustomClass(data, Message.class, null));
+        System.out.printf("documents=%d mapper_ms=%.2f reflection_ms=%.2f speedup=%.1fx%n",
+                documents.size(), mapperNanos / 1e6, reflectionNanos / 1e6,
+                (double) reflectionNanos / mapperNanos);
+    }
+
+    private long measure(List<Map<String, Object>> documents, Function<Map<String, Object>, Message> mapper) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapAll(documents, mapper);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            mapAll(documents, mapper);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private void mapAll(List<Map<String, Object>> documents, Function<Map<String, Object>, Message> mapper) {
+        List<Message> messages = new ArrayList<>(documents.size());
+        for (Map<String, Object> data : documents) {
+            messages.add(mapper.apply(data));
+        }
+        if (messages.size() != documents.size()) throw new AssertionError();
+    }
+
+    private List<Map<String, Object>> documents(int count) {
+        List<Map<String, Object>> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(MessageMapper.INSTANCE.toMap(Message.builder()
+                    .messageId("m" + i)
+                    .senderId("u" + (i % 2))
+                    .senderName("User " + (i % 2))
+                    .chatId("c1")
+                    .content("message number " + i)
+                    .messageType(MessageType.TEXT)
+                    .timestamp(new Timestamp(1_700_000_000L + i, 0))
+                    .readBy(Arrays.asList("u0", "u1"))
+                    .build()));
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,124 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.Timestamp;
+import com.wornux.chatzam.data.dto.MediaVariant;
+import com.wornux.chatzam.data.entities.Message;
+import com.wornux.chatzam.data.enums.MediaRendition;
+import com.wornux.chatzam.data.enums.MessageType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MessageMapperTest {
+
+    private static final Timestamp SENT_AT = new Timestamp(1_700_000_000L, 123_000);
+
+    @Test
+    public void roundTrip_keepsEveryField() {
+        List<MediaVariant> variants = Arrays.asList(
+                variant(MediaRendition.THUMB, "https://cdn/thumb.jpg", 640, 480),
+                variant(MediaRendition.ORIGINAL, "https://cdn/original.jpg", 2048, 1536));
+        Message message = Message.builder()
+                .messageId("m1")
+                .senderId("u1")
+                .senderName("Ana")
+                .receiverId("u2")
+                .chatId("c1")
+                .content("hola")
+                .encryptedContent("cipher")
+                .messageType(MessageType.IMAGE)
+                .timestamp(SENT_AT)
+                .readBy(Arrays.asList("u1", "u2"))
+                .mediaUrl("https://cdn/original.jpg")
+                .mediaVariants(variants)
+                .mediaWidth(2048)
+                .mediaHeight(1536)
+                .mediaPlaceholder("LEHV6nWB2yk8")
+                .build();
+
+        Message mapped = MessageMapper.INSTANCE.fromMap(MessageMapper.INSTANCE.toMap(message));
+
+        assertEquals("m1", mapped.getMessageId());
+        assertEquals("u1", mapped.getSenderId());
+        assertEquals("Ana", mapped.getSenderName());
+        assertEquals("u2", mapped.getReceiverId());
+        assertEquals("c1", mapped.getChatId());
+        assertEquals("hola", mapped.getContent());
+        assertEquals("cipher", mapped.getEncryptedContent());
+        assertEquals(MessageType.IMAGE, mapped.getMessageType());
+        assertEquals(SENT_AT, mapped.getTimestamp());
+        assertEquals(Arrays.asList("u1", "u2"), mapped.getReadBy());
+        assertEquals("https://cdn/original.jpg", mapped.getMediaUrl());
+        assertEquals(variants, mapped.getMediaVariants());
+        assertEquals(2048, mapped.getMediaWidth());
+        assertEquals(1536, mapped.getMediaHeight());
+        assertEquals("LEHV6nWB2yk8", mapped.getMediaPlaceholder());
+    }
+
+    @Test
+    public void toMap_omitsUnsetMediaFields() {
+        Message message = Message.builder().messageId("m1").content("hola").build();
+
+        Map<String, Object> data = MessageMapper.INSTANCE.toMap(message);
+
+        assertFalse(data.containsKey("media_variants"));
+        assertFalse(data.containsKey("media_width"));
+        assertFalse(data.containsKey("media_height"));
+        assertFalse(data.containsKey("media_placeholder"));
+        assertTrue(data.containsKey("media_url"));
+        assertNull(data.get("media_url"));
+    }
+
+    @Test
+    public void fromMap_handlesMissingAndNullFields() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("message_id", "m1");
+        data.put("content", null);
+        data.put("timestamp", null);
+
+        Message message = MessageMapper.INSTANCE.fromMap(data);
+
+        assertEquals("m1", message.getMessageId());
+        assertNull(message.getContent());
+        assertNull(message.getMessageType());
+        assertNull(message.getTimestamp());
+        assertTrue(message.getReadBy().isEmpty());
+        assertTrue(message.getMediaVariants().isEmpty());
+        assertEquals(0, message.getMediaWidth());
+    }
+
+    @Test
+    public void fromMap_readsDateAsTimestamp() {
+        Date sentAt = new Date(1_700_000_000_000L);
+        Map<String, Object> data = new HashMap<>();
+        data.put("timestamp", sentAt);
+
+        assertEquals(new Timestamp(sentAt), MessageMapper.INSTANCE.fromMap(data).getTimestamp());
+    }
+
+    @Test
+    public void fromMap_ignoresWrongTypesAndUnknownEnums() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("message_type", "VIDEO");
+        data.put("content", 42L);
+        data.put("media_width", 640L);
+        data.put("read_by", Arrays.asList("u1", 7L, null));
+
+        Message message = MessageMapper.INSTANCE.fromMap(data);
+
+        assertNull(message.getMessageType());
+        assertNull(message.getContent());
+        assertEquals(640, message.getMediaWidth());
+        assertEquals(Arrays.asList("u1"), message.getReadBy());
+    }
+
+    private static MediaVariant variant(MediaRendition rendition, String url, int width, int height) {
+        return MediaVariant.builder().rendition(rendition).url(url).width(width).height(height).build();
+    }
+}
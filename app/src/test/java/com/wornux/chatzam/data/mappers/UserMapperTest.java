@@ -0,0 +1,111 @@
+package com.wornux.chatzam.data.mappers;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FieldValue;
+import com.wornux.chatzam.data.dto.UserDto;
+import com.wornux.chatzam.data.entities.User;
+import com.wornux.chatzam.data.enums.UserStatus;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class UserMapperTest {
+
+    private static final Timestamp LAST_SEEN = new Timestamp(1_700_000_000L, 0);
+
+    @Test
+    public void roundTrip_keepsEveryField() {
+        User user = User.builder()
+                .userId("u1")
+                .email("ana@example.com")
+                .displayName("Ana")
+                .profileImageUrl("https://cdn/u1.jpg")
+                .isOnline(true)
+                .lastSeen(LAST_SEEN)
+                .status(UserStatus.ONLINE)
+                .fcmTokens(Arrays.asList("t1", "t2"))
+                .fcmTokenLastSeen(Collections.singletonMap("t1", LAST_SEEN))
+                .build();
+
+        User mapped = UserMapper.INSTANCE.fromMap(UserMapper.INSTANCE.toMap(user));
+
+        assertEquals("u1", mapped.getUserId());
+        assertEquals("ana@example.com", mapped.getEmail());
+        assertEquals("Ana", mapped.getDisplayName());
+        assertEquals("https://cdn/u1.jpg", mapped.getProfileImageUrl());
+        assertTrue(mapped.isOnline());
+        assertEquals(LAST_SEEN, mapped.getLastSeen());
+        assertEquals(UserStatus.ONLINE, mapped.getStatus());
+        assertEquals(Arrays.asList("t1", "t2"), mapped.getFcmTokens());
+        assertEquals(Collections.singletonMap("t1", LAST_SEEN), mapped.getFcmTokenLastSeen());
+    }
+
+    @Test
+    public void toMap_writesSearchKeysAndServerUpdatedAt() {
+        User user = User.builder().userId("u1").email("ana@example.com").displayName("Ana").build();
+
+        Map<String, Object> data = UserMapper.INSTANCE.toMap(user);
+
+        assertTrue(data.get("updated_at") instanceof FieldValue);
+        assertTrue(((List<?>) data.get("search_keys")).contains("ana"));
+    }
+
+    @Test
+    public void fromMap_handlesMissingFieldsAndDates() {
+        Date lastSeen = new Date(1_700_000_000_000L);
+        Map<String, Object> tokenLastSeen = new HashMap<>();
+        tokenLastSeen.put("t1", lastSeen);
+        tokenLastSeen.put("t2", "yesterday");
+        Map<String, Object> data = new HashMap<>();
+        data.put("user_id", "u1");
+        data.put("last_seen", lastSeen);
+        data.put("fcm_token_last_seen", tokenLastSeen);
+
+        User user = UserMapper.INSTANCE.fromMap(data);
+
+        assertNull(user.getEmail());
+        assertFalse(user.isOnline());
+        assertNull(user.getStatus());
+        assertNull(user.getUpdatedAt());
+        assertTrue(user.getFcmTokens().isEmpty());
+        assertEquals(new Timestamp(lastSeen), user.getLastSeen());
+        assertEquals(Collections.singletonMap("t1", new Timestamp(lastSeen)), user.getFcmTokenLastSeen());
+    }
+
+    @Test
+    public void userDto_roundTripKeepsEveryField() {
+        UserDto userDto = UserDto.builder()
+                .userId("u1")
+                .displayName("Ana")
+                .profileImageUrl("https://cdn/u1.jpg")
+                .lastSeen(LAST_SEEN)
+                .isOnline(true)
+                .fcmTokens(Arrays.asList("t1"))
+                .build();
+
+        assertEquals(userDto, UserDtoMapper.INSTANCE.fromMap(UserDtoMapper.INSTANCE.toMap(userDto)));
+    }
+
+    @Test
+    public void userDto_fromMapHandlesNulls() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("user_id", "u1");
+        data.put("display_name", null);
+        data.put("is_online", null);
+
+        UserDto userDto = UserDtoMapper.INSTANCE.fromMap(data);
+
+        assertEquals("u1", userDto.getUserId());
+        assertNull(userDto.getDisplayName());
+        assertNull(userDto.getLastSeen());
+        assertFalse(userDto.isOnline());
+        assertTrue(userDto.getFcmTokens().isEmpty());
+    }
+}
@@ -0,0 +1,120 @@
+package com.wornux.chatzam.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BlurHashTest {
+
+    private static final String REFERENCE_HASH = "LEHV6nWB2yk8pyo0adR*.7kCMdnj";
+
+    @Test
+    public void encode_lengthMatchesComponents() {
+        int[] pixels = gradient(32, 24);
+
+        assertEquals(4 + 2 * 4 * 3, BlurHash.encode(pixels, 32, 24, 4, 3).length());
+        assertEquals(4 + 2 * 3 * 4, BlurHash.encode(pixels, 32, 24, 3, 4).length());
+        assertEquals(6, BlurHash.encode(pixels, 32, 24, 1, 1).length());
+        assertEquals(4 + 2 * 9 * 9, BlurHash.encode(pixels, 32, 24, 9, 9).length());
+    }
+
+    @Test
+    public void roundTrip_keepsSolidColor() {
+        int color = 0xFF3366CC;
+        int[] pixels = new int[16 * 16];
+        Arrays.fill(pixels, color);
+
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, 16, 16, 1, 1), 8, 8);
+
+        for (int pixel : decoded) {
+            assertColorClose(color, pixel);
+        }
+    }
+
+    @Test
+    public void roundTrip_keepsHorizontalGradientDirection() {
+        int[] decoded = BlurHash.decode(BlurHash.encode(gradient(32, 24), 32, 24, 4, 3), 16, 4);
+
+        int left = decoded[2 * 16] & 0xFF;
+        int right = decoded[2 * 16 + 15] & 0xFF;
+        assertTrue(left + 100 < right);
+    }
+
+    @Test
+    public void roundTrip_keepsAverageColorInLinearSpace() {
+        int[] pixels = checkerboard(32, 24, 0xFF204060, 0xFF406080);
+
+        int[] decoded = BlurHash.decode(BlurHash.encode(pixels, 32, 24, 1, 1), 1, 1);
+
+        assertColorClose(0xFF31516F, decoded[0]);
+    }
+
+    @Test
+    public void encode_isDeterministic() {
+        int[] pixels = checkerboard(32, 24, 0xFF204060, 0xFF406080);
+
+        assertEquals(BlurHash.encode(pixels, 32, 24, 4, 3), BlurHash.encode(pixels, 32, 24, 4, 3));
+    }
+
+    @Test
+    public void decode_referenceHashProducesOpaquePixels() {
+        int[] decoded = BlurHash.decode(REFERENCE_HASH, 20, 12);
+
+        assertEquals(20 * 12, decoded.length);
+        for (int pixel : decoded) {
+            assertEquals(0xFF, pixel >>> 24);
+        }
+    }
+
+    @Test
+    public void decode_rejectsLengthThatDoesNotMatchComponents() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BlurHash.decode(REFERENCE_HASH.substring(0, REFERENCE_HASH.length() - 2), 4, 4));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.decode(REFERENCE_HASH + "00", 4, 4));
+    }
+
+    @Test
+    public void decode_rejectsShortOrInvalidHashes() {
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.decode(null, 4, 4));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.decode("00000", 4, 4));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.decode("0000 0", 4, 4));
+    }
+
+    @Test
+    public void encode_rejectsInvalidInput() {
+        int[] pixels = gradient(4, 4);
+
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(pixels, 4, 4, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(pixels, 4, 4, 4, 10));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(pixels, 8, 8, 4, 3));
+    }
+
+    private static int[] gradient(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = x * 255 / (width - 1);
+                pixels[y * width + x] = 0xFF000000 | value << 16 | value << 8 | value;
+            }
+        }
+        return pixels;
+    }
+
+    private static int[] checkerboard(int width, int height, int even, int odd) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i % 2 == 0 ? even : odd;
+        }
+        return pixels;
+    }
+
+    private static void assertColorClose(int expected, int actual) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int difference = Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF));
+            assertTrue("Expected " + Integer.toHexString(expected) + " but was "
+                    + Integer.toHexString(actual), difference <= 2);
+        }
+    }
+}
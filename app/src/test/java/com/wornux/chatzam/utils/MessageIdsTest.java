@@ -0,0 +1,70 @@
+package com.wornux.chatzam.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MessageIdsTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    @Test
+    public void next_hasFixedLengthAndCrockfordAlphabet() {
+        for (int i = 0; i < 1_000; i++) {
+            String id = MessageIds.next();
+
+            assertEquals(26, id.length());
+            for (char c : id.toCharArray()) {
+                assertTrue("Unexpected character " + c + " in " + id, ALPHABET.indexOf(c) >= 0);
+            }
+        }
+    }
+
+    @Test
+    public void next_encodesCreationTimeInPrefix() {
+        long before = System.currentTimeMillis();
+        String id = MessageIds.next();
+        long after = System.currentTimeMillis();
+
+        long millis = decodeTime(id);
+
+        assertTrue(millis >= before);
+        assertTrue(millis <= after);
+    }
+
+    @Test
+    public void next_isStrictlyIncreasingWithinTheSameMillisecond() {
+        String previous = MessageIds.next();
+        int sameMillisecond = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String id = MessageIds.next();
+
+            assertTrue(previous + " should sort before " + id, previous.compareTo(id) < 0);
+            if (decodeTime(previous) == decodeTime(id)) {
+                sameMillisecond++;
+            }
+            previous = id;
+        }
+
+        assertTrue(sameMillisecond > 0);
+    }
+
+    @Test
+    public void next_isUnique() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(MessageIds.next()));
+        }
+    }
+
+    private static long decodeTime(String id) {
+        long millis = 0;
+        for (int i = 0; i < 10; i++) {
+            millis = (millis << 5) | ALPHABET.indexOf(id.charAt(i));
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,69 @@
+package com.wornux.chatzam.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PrefixTrieTest {
+
+  @Test
+  public void search_returnsValuesUnderPrefix() {
+    PrefixTrie trie = new PrefixTrie();
+    trie.insert("ana", "u1");
+    trie.insert("andres", "u2");
+    trie.insert("bea", "u3");
+
+    assertEquals(new HashSet<>(Arrays.asList("u1", "u2")), trie.search("an", 10));
+    assertEquals(new HashSet<>(Arrays.asList("u2")), trie.search("and", 10));
+    assertTrue(trie.search("c", 10).isEmpty());
+  }
+
+  @Test
+  public void search_respectsLimit() {
+    PrefixTrie trie = new PrefixTrie();
+    for (int i = 0; i < 50; i++) {
+      trie.insert("user" + i, "u" + i);
+    }
+
+    assertEquals(5, trie.search("user", 5).size());
+    assertEquals(50, trie.search("", 100).size());
+  }
+
+  @Test
+  public void search_returnsEachValueOnce() {
+    PrefixTrie trie = new PrefixTrie();
+    trie.insert("ana", "u1");
+    trie.insert("ana lopez", "u1");
+
+    assertEquals(1, trie.search("ana", 10).size());
+  }
+
+  @Test
+  public void remove_dropsOnlyThatKey() {
+    PrefixTrie trie = new PrefixTrie();
+    trie.insert("ana", "u1");
+    trie.insert("lopez", "u1");
+    trie.insert("ana", "u2");
+
+    trie.remove("ana", "u1");
+
+    assertEquals(new HashSet<>(Arrays.asList("u2")), trie.search("ana", 10));
+    assertEquals(new HashSet<>(Arrays.asList("u1")), trie.search("lo", 10));
+  }
+
+  @Test
+  public void remove_ignoresMissingKeys() {
+    PrefixTrie trie = new PrefixTrie();
+    trie.insert("ana", "u1");
+
+    trie.remove("bea", "u1");
+    trie.remove("an", "u1");
+
+    Set<String> results = trie.search("a", 10);
+    assertEquals(new HashSet<>(Arrays.asList("u1")), results);
+  }
+}
@@ -0,0 +1,69 @@
+package com.wornux.chatzam.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchKeyUtilsTest {
+
+    @Test
+    public void normalize_stripsAccentsAndCase() {
+        assertEquals("jose nunez", SearchKeyUtils.normalize("José Núñez"));
+        assertEquals("francois", SearchKeyUtils.normalize("FRANÇOIS"));
+    }
+
+    @Test
+    public void normalize_collapsesWhitespace() {
+        assertEquals("ana maria", SearchKeyUtils.normalize("  Ana \t  María "));
+    }
+
+    @Test
+    public void normalize_handlesNull() {
+        assertEquals("", SearchKeyUtils.normalize(null));
+    }
+
+    @Test
+    public void normalize_truncatesToMaxKeyLength() {
+        String normalized = SearchKeyUtils.normalize("Maximiliano Alejandro Fernández");
+
+        assertEquals(SearchKeyUtils.MAX_KEY_LENGTH, normalized.length());
+        assertEquals("maximiliano alejandr", normalized);
+    }
+
+    @Test
+    public void searchTokens_splitsNameAndEmailLocalPart() {
+        List<String> tokens = SearchKeyUtils.searchTokens("Ana López", "ana.lopez+chat@Mail.com");
+
+        assertTrue(tokens.contains("ana lopez"));
+        assertTrue(tokens.contains("ana"));
+        assertTrue(tokens.contains("lopez"));
+        assertTrue(tokens.contains("chat"));
+        assertTrue(tokens.contains("ana.lopez+chat@mail."));
+        assertFalse(tokens.contains("mail.com"));
+    }
+
+    @Test
+    public void searchTokens_skipsMissingValues() {
+        List<String> tokens = SearchKeyUtils.searchTokens(null, null);
+
+        assertTrue(tokens.isEmpty());
+    }
+
+    @Test
+    public void buildSearchKeys_containsEveryPrefixOnce() {
+        List<String> keys = SearchKeyUtils.buildSearchKeys("Ana", "ana@x.io");
+
+        assertEquals(new HashSet<>(keys).size(), keys.size());
+        assertTrue(keys.contains("a"));
+        assertTrue(keys.contains("an"));
+        assertTrue(keys.contains("ana"));
+        assertTrue(keys.contains("ana@x.io"));
+        assertFalse(keys.contains(""));
+        for (String key : keys) {
+            assertTrue(key.length() <= SearchKeyUtils.MAX_KEY_LENGTH);
+        }
+    }
+}
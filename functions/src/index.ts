@@ -1,8 +1,10 @@
 import * as functions from "firebase-functions";
 import * as admin from "firebase-admin";
-import {Chat, Message} from "./types/firestore-types";
+import {Chat, Message, User} from "./types/firestore-types";
 import {sendNotificationsToRecipients} from "./services/notification-service";
 import {storeFailedNotification, processRetries} from "./services/retry-service";
+import {hasSameDetails, syncParticipantDetails, toUserDTO} from "./services/participant-sync-service";
+import {staleSearchKeys} from "./services/search-key-service";
 import {logInfo, logError, logWarning} from "./utils/logger";
 
 admin.initializeApp();
@@ -124,6 +126,7 @@ export const onMessageCreated = functions
         chatId,
         successCount: result.success.length,
         failedCount: result.failed.length,
+        unregisteredCount: result.unregistered.length,
       });
     } catch (error) {
       logError("Failed to process message notification", error, {
@@ -149,3 +152,44 @@ export const processNotificationRetries = functions
 
     return null;
   });
+
+export const onUserUpdated = functions
+  .region("us-east1")
+  .firestore
+  .document("users/{userId}")
+  .onUpdate(async (change, context) => {
+    const userId = context.params.userId;
+    const user = change.after.data() as User;
+
+    // Existing accounts predate search_keys, and most writes no longer touch the profile, so any
+    // update fills them in. The follow-up write finds them current and stops here.
+    const searchKeys = staleSearchKeys(user);
+    if (searchKeys) {
+      try {
+        await change.after.ref.update("search_keys", searchKeys);
+        logInfo("Updated search_keys for user", {userId, keyCount: searchKeys.length});
+      } catch (error) {
+        logError("Failed to update search_keys", error, {userId});
+      }
+    }
+
+    const before = toUserDTO(userId, change.before.data() as User);
+    const after = toUserDTO(userId, user);
+
+    if (hasSameDetails(before, after)) {
+      return;
+    }
+
+    try {
+      const result = await syncParticipantDetails(userId, after);
+
+      logInfo("Synced participant_details for user", {
+        userId,
+        chatCount: result.chatCount,
+        updatedCount: result.updatedCount,
+        batchCount: result.batchCount,
+      });
+    } catch (error) {
+      logError("Failed to sync participant_details", error, {userId});
+    }
+  });
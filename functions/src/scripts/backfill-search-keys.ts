@@ -0,0 +1,14 @@
+import * as admin from "firebase-admin";
+import {backfillSearchKeys} from "../services/search-key-service";
+
+// One-off: npm run backfill:search-keys, with application default credentials for the project.
+admin.initializeApp();
+
+backfillSearchKeys()
+  .then((result) => {
+    console.log(`Checked ${result.userCount} users, updated search_keys on ${result.updatedCount}`);
+  })
+  .catch((error) => {
+    console.error("Failed to backfill search_keys", error);
+    process.exitCode = 1;
+  });
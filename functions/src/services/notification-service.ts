@@ -1,16 +1,18 @@
 import * as admin from "firebase-admin";
-import {Message, MessageType, Chat} from "../types/firestore-types";
+import {Message, MessageType, MediaRendition, Chat} from "../types/firestore-types";
 import {truncateText} from "../utils/string-utils";
 import {logInfo, logError} from "../utils/logger";
+import {isInvalidToken, pruneUnregisteredToken} from "./token-service";
 
 export async function sendNotificationsToRecipients(
   message: Message,
   chat: Chat,
   tokens: string[],
   senderName: string
-): Promise<{success: string[], failed: string[]}> {
+): Promise<{success: string[], failed: string[], unregistered: string[]}> {
   const successfulTokens: string[] = [];
   const failedTokens: string[] = [];
+  const unregisteredTokens: string[] = [];
 
   const notificationBody = buildNotificationBody(message);
 
@@ -28,10 +30,11 @@ export async function sendNotificationsToRecipients(
         token: token.substring(0, 20) + "...",
       });
     } catch (error) {
-      failedTokens.push(token);
-
       if (isInvalidToken(error)) {
+        unregisteredTokens.push(token);
         await removeInvalidTokenFromParticipants(chat.chat_id, token);
+      } else {
+        failedTokens.push(token);
       }
 
       logError("Failed to send notification", error, {
@@ -46,6 +49,7 @@ export async function sendNotificationsToRecipients(
   return {
     success: successfulTokens,
     failed: failedTokens,
+    unregistered: unregisteredTokens,
   };
 }
 
@@ -62,12 +66,18 @@ function buildNotificationBody(message: Message): string {
   }
 }
 
+function notificationMediaUrl(message: Message): string | undefined {
+  const thumb = message.media_variants?.find((variant) => variant.rendition === MediaRendition.THUMB);
+  return thumb?.url ?? message.media_url;
+}
+
 function buildFCMPayload(
   message: Message,
   chat: Chat,
   notificationBody: string,
   senderName: string
 ): Omit<admin.messaging.Message, "token"> {
+  const mediaUrl = notificationMediaUrl(message);
   return {
     notification: {
       title: senderName,
@@ -81,7 +91,7 @@ function buildFCMPayload(
       messageType: message.message_type,
       timestamp: message.timestamp.toMillis().toString(),
       clickAction: "OPEN_CHAT",
-      ...(message.media_url && {mediaUrl: message.media_url}),
+      ...(mediaUrl && {mediaUrl}),
     },
     android: {
       priority: "high",
@@ -94,15 +104,6 @@ function buildFCMPayload(
   };
 }
 
-function isInvalidToken(error: unknown): boolean {
-  if (error instanceof Error) {
-    const errorCode = (error as {code?: string}).code;
-    return errorCode === "messaging/invalid-registration-token" ||
-           errorCode === "messaging/registration-token-not-registered";
-  }
-  return false;
-}
-
 async function removeInvalidTokenFromParticipants(chatId: string, invalidToken: string): Promise<void> {
   try {
     const chatRef = admin.firestore().collection("chats").doc(chatId);
@@ -128,6 +129,7 @@ async function removeInvalidTokenFromParticipants(chatId: string, invalidToken:
           participantId,
           token: invalidToken.substring(0, 20) + "...",
         });
+        await pruneUnregisteredToken(participantId, invalidToken);
         break;
       }
     }
@@ -0,0 +1,88 @@
+import * as admin from "firebase-admin";
+import {Chat, User, UserDTO} from "../types/firestore-types";
+
+const MAX_BATCH_WRITES = 500;
+
+export interface ParticipantSyncResult {
+  chatCount: number;
+  updatedCount: number;
+  batchCount: number;
+}
+
+export function toUserDTO(userId: string, user: User): UserDTO {
+  return {
+    user_id: userId,
+    display_name: user.display_name,
+    profile_image_url: user.profile_image_url ?? null,
+    last_seen: user.last_seen ?? null,
+    is_online: user.is_online ?? false,
+    fcm_tokens: user.fcm_tokens ?? [],
+  };
+}
+
+export function hasSameDetails(current: UserDTO | undefined, next: UserDTO): boolean {
+  if (!current) {
+    return false;
+  }
+
+  const sameLastSeen = current.last_seen && next.last_seen ?
+    current.last_seen.isEqual(next.last_seen) :
+    !current.last_seen && !next.last_seen;
+  const currentTokens = current.fcm_tokens ?? [];
+
+  return current.display_name === next.display_name &&
+    (current.profile_image_url ?? null) === next.profile_image_url &&
+    sameLastSeen &&
+    current.is_online === next.is_online &&
+    currentTokens.length === next.fcm_tokens.length &&
+    currentTokens.every((token, index) => token === next.fcm_tokens[index]);
+}
+
+export async function syncParticipantDetails(
+  userId: string,
+  userDTO: UserDTO
+): Promise<ParticipantSyncResult> {
+  const db = admin.firestore();
+  const result: ParticipantSyncResult = {chatCount: 0, updatedCount: 0, batchCount: 0};
+
+  let lastDoc: admin.firestore.QueryDocumentSnapshot | undefined;
+  for (;;) {
+    let query = db.collection("chats")
+      .where("participants", "array-contains", userId)
+      .orderBy(admin.firestore.FieldPath.documentId())
+      .limit(MAX_BATCH_WRITES);
+    if (lastDoc) {
+      query = query.startAfter(lastDoc);
+    }
+
+    const page = await query.get();
+    if (page.empty) {
+      break;
+    }
+
+    const batch = db.batch();
+    let batchWrites = 0;
+    for (const doc of page.docs) {
+      const chat = doc.data() as Chat;
+      if (hasSameDetails(chat.participant_details?.[userId], userDTO)) {
+        continue;
+      }
+      batch.update(doc.ref, new admin.firestore.FieldPath("participant_details", userId), userDTO);
+      batchWrites++;
+    }
+
+    if (batchWrites > 0) {
+      await batch.commit();
+      result.batchCount++;
+      result.updatedCount += batchWrites;
+    }
+
+    result.chatCount += page.size;
+    lastDoc = page.docs[page.docs.length - 1];
+    if (page.size < MAX_BATCH_WRITES) {
+      break;
+    }
+  }
+
+  return result;
+}
@@ -1,6 +1,7 @@
 import * as admin from "firebase-admin";
 import {NotificationRetry, NotificationFailure} from "../types/firestore-types";
 import {logInfo, logError, logWarning} from "../utils/logger";
+import {isInvalidToken, pruneUnregisteredToken} from "./token-service";
 
 const RETRY_DELAYS_MINUTES = [1, 5, 15];
 const MAX_RETRY_ATTEMPTS = 3;
@@ -108,6 +109,10 @@ async function retryNotification(
             attemptCount: retry.attempt_count,
           });
         } catch (error) {
+          if (isInvalidToken(error)) {
+            await pruneUnregisteredToken(userId, token);
+            continue;
+          }
           if (!failedAgain[userId]) {
             failedAgain[userId] = [];
           }
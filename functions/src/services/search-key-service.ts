@@ -0,0 +1,98 @@
+import * as admin from "firebase-admin";
+import {User} from "../types/firestore-types";
+
+// Mirrors SearchKeyUtils on the client; both must produce the same keys.
+const MAX_KEY_LENGTH = 20;
+const MAX_BATCH_WRITES = 500;
+
+export interface SearchKeyBackfillResult {
+  userCount: number;
+  updatedCount: number;
+}
+
+export function normalize(value: string | undefined | null): string {
+  if (!value) {
+    return "";
+  }
+  const normalized = value.normalize("NFD")
+    .replace(/\p{M}/gu, "")
+    .toLowerCase()
+    .trim()
+    .replace(/\s+/g, " ");
+  return normalized.length > MAX_KEY_LENGTH ? normalized.substring(0, MAX_KEY_LENGTH) : normalized;
+}
+
+export function buildSearchKeys(displayName: string | undefined, email: string | undefined): string[] {
+  const tokens = new Set<string>();
+
+  const normalizedName = normalize(displayName);
+  tokens.add(normalizedName);
+  normalizedName.split(" ").forEach((token) => tokens.add(token));
+
+  const normalizedEmail = normalize(email);
+  tokens.add(normalizedEmail);
+  const at = normalizedEmail.indexOf("@");
+  if (at > 0) {
+    normalizedEmail.substring(0, at).split(/[._+-]/).forEach((token) => tokens.add(token));
+  }
+  tokens.delete("");
+
+  const keys = new Set<string>();
+  for (const token of tokens) {
+    for (let i = 1; i <= token.length; i++) {
+      keys.add(token.substring(0, i));
+    }
+  }
+  return [...keys];
+}
+
+/** Returns the keys the user should have, or null when the stored ones are already current. */
+export function staleSearchKeys(user: User): string[] | null {
+  const keys = buildSearchKeys(user.display_name, user.email);
+  const current = user.search_keys ?? [];
+  const same = current.length === keys.length && keys.every((key, index) => key === current[index]);
+  return same ? null : keys;
+}
+
+/** Writes search_keys to every user document where they are missing or stale. */
+export async function backfillSearchKeys(): Promise<SearchKeyBackfillResult> {
+  const db = admin.firestore();
+  const result: SearchKeyBackfillResult = {userCount: 0, updatedCount: 0};
+
+  let lastDoc: admin.firestore.QueryDocumentSnapshot | undefined;
+  for (;;) {
+    let query = db.collection("users")
+      .orderBy(admin.firestore.FieldPath.documentId())
+      .limit(MAX_BATCH_WRITES);
+    if (lastDoc) {
+      query = query.startAfter(lastDoc);
+    }
+
+    const page = await query.get();
+    if (page.empty) {
+      break;
+    }
+
+    const batch = db.batch();
+    let batchWrites = 0;
+    for (const doc of page.docs) {
+      const keys = staleSearchKeys(doc.data() as User);
+      if (keys) {
+        batch.update(doc.ref, "search_keys", keys);
+        batchWrites++;
+      }
+    }
+    if (batchWrites > 0) {
+      await batch.commit();
+      result.updatedCount += batchWrites;
+    }
+
+    result.userCount += page.size;
+    lastDoc = page.docs[page.docs.length - 1];
+    if (page.size < MAX_BATCH_WRITES) {
+      break;
+    }
+  }
+
+  return result;
+}
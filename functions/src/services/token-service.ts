@@ -0,0 +1,30 @@
+import * as admin from "firebase-admin";
+import {logInfo, logError} from "../utils/logger";
+
+export function isInvalidToken(error: unknown): boolean {
+  if (error instanceof Error) {
+    const errorCode = (error as {code?: string}).code;
+    return errorCode === "messaging/invalid-registration-token" ||
+           errorCode === "messaging/registration-token-not-registered";
+  }
+  return false;
+}
+
+export async function pruneUnregisteredToken(userId: string, token: string): Promise<void> {
+  try {
+    await admin.firestore()
+      .collection("users")
+      .doc(userId)
+      .update(
+        "fcm_tokens", admin.firestore.FieldValue.arrayRemove(token),
+        new admin.firestore.FieldPath("fcm_token_last_seen", token), admin.firestore.FieldValue.delete()
+      );
+
+    logInfo("Pruned unregistered FCM token from user", {
+      userId,
+      token: token.substring(0, 20) + "...",
+    });
+  } catch (error) {
+    logError("Failed to prune unregistered FCM token from user", error, {userId});
+  }
+}
@@ -10,6 +10,19 @@ export enum ChatType {
   GROUP = "GROUP"
 }
 
+export enum MediaRendition {
+  THUMB = "THUMB",
+  MEDIUM = "MEDIUM",
+  ORIGINAL = "ORIGINAL"
+}
+
+export interface MediaVariant {
+  rendition: MediaRendition;
+  url: string;
+  width: number;
+  height: number;
+}
+
 export interface Message {
   message_id: string;
   sender_id: string;
@@ -23,6 +36,10 @@ export interface Message {
   is_read: boolean;
   read_by: string[];
   media_url?: string;
+  media_variants?: MediaVariant[];
+  media_width?: number;
+  media_height?: number;
+  media_placeholder?: string;
   delivered_at?: Timestamp;
 }
 
@@ -40,11 +57,23 @@ export interface Chat {
   created_at: Timestamp;
 }
 
-export interface UserDTO {
+export interface User {
   user_id: string;
+  email: string;
   display_name: string;
   profile_image_url?: string;
+  is_online: boolean;
   last_seen?: Timestamp;
+  fcm_tokens: string[];
+  fcm_token_last_seen?: {[token: string]: Timestamp};
+  search_keys?: string[];
+}
+
+export interface UserDTO {
+  user_id: string;
+  display_name: string;
+  profile_image_url?: string | null;
+  last_seen?: Timestamp | null;
   is_online: boolean;
   fcm_tokens: string[];
 }